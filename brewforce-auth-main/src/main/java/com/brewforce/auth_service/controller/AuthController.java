@@ -5,13 +5,11 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.LockedException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
@@ -21,15 +19,18 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 import com.brewforce.auth_service.dto.request.LoginJwtRequestDTO;
 import com.brewforce.auth_service.dto.response.BaseResponseDTO;
 import com.brewforce.auth_service.dto.response.LoginJwtResponseDTO;
 import com.brewforce.auth_service.model.Enduser;
+import com.brewforce.auth_service.security.PasswordHashingRejectedException;
 import com.brewforce.auth_service.security.jwt.JwtUtils;
 import com.brewforce.auth_service.service.AuditLogServiceImpl;
 import com.brewforce.auth_service.service.LoginAttemptServiceImpl;
+import com.brewforce.auth_service.service.LoginServiceImpl;
 import com.brewforce.auth_service.service.UserServiceImpl;
 
 @RestController
@@ -38,7 +39,7 @@ import com.brewforce.auth_service.service.UserServiceImpl;
 public class AuthController {
 
     @Autowired
-    private AuthenticationManager authenticationManager;
+    private LoginServiceImpl loginService;
 
     @Autowired
     private JwtUtils jwtUtils;
@@ -95,6 +96,9 @@ public class AuthController {
 
             return new ResponseEntity<>(baseResponseDTO, HttpStatus.OK);
 
+        } catch (PasswordHashingRejectedException e) {
+            return serviceUnavailable(baseResponseDTO, e);
+
         } catch (Exception e) {
             baseResponseDTO.setStatus(HttpStatus.BAD_REQUEST.value());
             baseResponseDTO.setMessage("Register gagal: " + e.getMessage());
@@ -106,30 +110,18 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> authenticateUser(@RequestBody LoginJwtRequestDTO loginRequest) {
+    public ResponseEntity<?> authenticateUser(@RequestBody LoginJwtRequestDTO loginRequest,
+            HttpServletRequest request) {
         var baseResponseDTO = new BaseResponseDTO<LoginJwtResponseDTO>();
         try {
-            // Check status
-            if (loginAttemptService.isLocked(loginRequest.getUsername())) {
-                long lockedMinutes = loginAttemptService.getLockoutMinutes(loginRequest.getUsername());
-                throw new LockedException("Akun terkunci karena 3 kali percobaan login gagal. Silakan coba lagi setelah " + lockedMinutes + " menit.");
-            }
-    
-            // Authenticate user
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            loginRequest.getUsername(),
-                            loginRequest.getPassword()));
-    
-            // Reset login attempts
-            loginAttemptService.loginSuccess(loginRequest.getUsername());
-            Enduser user = userService.getUserByUsername(loginRequest.getUsername());
-    
+            // User dan status lockout dimuat sekali, lalu dipakai untuk token dan response
+            Enduser user = loginService.authenticate(loginRequest.getUsername(), loginRequest.getPassword(),
+                    request.getRemoteAddr());
+
             // Generate token JWT
-            String token = jwtUtils.generateJwtToken(authentication.getName());
-            String role = userService.getUserRole(user.getUsername());
+            String token = jwtUtils.generateJwtToken(user);
     
-            LoginJwtResponseDTO responseDTO = new LoginJwtResponseDTO(token, user.getUsername(), user.getName(), role);
+            LoginJwtResponseDTO responseDTO = new LoginJwtResponseDTO(token, user.getUsername(), user.getName(), user.getRole());
             
             baseResponseDTO.setStatus(HttpStatus.OK.value());
             baseResponseDTO.setMessage("Login berhasil!");
@@ -147,8 +139,8 @@ public class AuthController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(baseResponseDTO);
     
         } catch (BadCredentialsException | UsernameNotFoundException e) {
-            // Handle failed attempts
-            loginAttemptService.loginFailed(loginRequest.getUsername());
+            // Handle failed attempts (dicatat di memori, tanpa query)
+            loginAttemptService.loginFailed(loginRequest.getUsername(), request.getRemoteAddr());
 
             auditLogService.logFailedLogin(loginRequest.getUsername());
             
@@ -164,6 +156,10 @@ public class AuthController {
             baseResponseDTO.setTimestamp(new Date());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(baseResponseDTO);
     
+        } catch (PasswordHashingRejectedException e) {
+            // Antrean bcrypt penuh: tolak cepat tanpa menghitung sebagai percobaan gagal
+            return serviceUnavailable(baseResponseDTO, e);
+
         } catch (Exception e) {
             baseResponseDTO.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
             baseResponseDTO.setMessage("Terjadi kesalahan pada sistem" + e.getMessage());
@@ -172,4 +168,15 @@ public class AuthController {
             return ResponseEntity.internalServerError().body(baseResponseDTO);
         }
     }
+
+    private <T> ResponseEntity<BaseResponseDTO<T>> serviceUnavailable(BaseResponseDTO<T> baseResponseDTO,
+            PasswordHashingRejectedException e) {
+        baseResponseDTO.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        baseResponseDTO.setMessage(e.getMessage());
+        baseResponseDTO.setData(null);
+        baseResponseDTO.setTimestamp(new Date());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(baseResponseDTO);
+    }
 }
@@ -17,6 +17,7 @@ import org.springframework.web.bind.annotation.RestController;
 import com.brewforce.auth_service.dto.response.BaseResponseDTO;
 import com.brewforce.auth_service.dto.response.DetailUserResponseDTO;
 import com.brewforce.auth_service.model.Enduser;
+import com.brewforce.auth_service.security.jwt.JwtClaims;
 import com.brewforce.auth_service.security.jwt.JwtUtils;
 import com.brewforce.auth_service.service.UserService;
 
@@ -58,7 +59,8 @@ public class UserController {
 
             String tokenWithoutBearer = token.startsWith("Bearer ") ? token.substring(7) : token;
 
-            if (!jwtUtils.validateJwtToken(tokenWithoutBearer)) {
+            JwtClaims claims = jwtUtils.parseClaims(tokenWithoutBearer);
+            if (claims == null) {
                 baseResponseDTO.setStatus(HttpStatus.UNAUTHORIZED.value());
                 baseResponseDTO.setMessage("Token is not valid or expired.");
                 baseResponseDTO.setData(null);
@@ -66,7 +68,7 @@ public class UserController {
                 return new ResponseEntity<>(baseResponseDTO, HttpStatus.UNAUTHORIZED);
             }
 
-            String username = jwtUtils.getUsernameJwtToken(tokenWithoutBearer);
+            String username = claims.getUsername();
             Enduser user = userService.getUserByUsername(username);
 
             if (user == null) {
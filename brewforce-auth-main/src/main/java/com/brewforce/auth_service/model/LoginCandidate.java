@@ -0,0 +1,15 @@
+package com.brewforce.auth_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Hasil satu query login: data user beserta status percobaan login-nya (null jika belum pernah gagal).
+ */
+@Getter
+@AllArgsConstructor
+public class LoginCandidate {
+    private Enduser user;
+
+    private LoginAttempt attempt;
+}
@@ -4,12 +4,30 @@ import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.brewforce.auth_service.model.Enduser;
+import com.brewforce.auth_service.model.LoginCandidate;
+
+import jakarta.transaction.Transactional;
 
 @Repository
 public interface EnduserDb extends JpaRepository<Enduser, UUID> {
     Optional<Enduser> findById(UUID id);
     Enduser findByUsername(String email);
+
+    // User dan status percobaan login diambil dalam satu query untuk alur login
+    @Query("select new com.brewforce.auth_service.model.LoginCandidate(u, a) from Enduser u " +
+            "left join LoginAttempt a on a.username = u.username where u.username = :username")
+    LoginCandidate findLoginCandidate(@Param("username") String username);
+
+    // Hanya menimpa hash lama yang sama, supaya penggantian password di antaranya tidak tertimpa
+    @Modifying
+    @Transactional
+    @Query("update Enduser u set u.password = :newPassword where u.userID = :id and u.password = :oldPassword")
+    int updatePassword(@Param("id") UUID id, @Param("oldPassword") String oldPassword,
+            @Param("newPassword") String newPassword);
 }
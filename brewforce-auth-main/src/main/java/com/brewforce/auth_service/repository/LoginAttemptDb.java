@@ -3,6 +3,8 @@ import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.brewforce.auth_service.model.LoginAttempt;
@@ -11,6 +13,8 @@ import com.brewforce.auth_service.model.LoginAttempt;
 public interface LoginAttemptDb extends JpaRepository<LoginAttempt, String> {
     Optional<LoginAttempt> findById(String username);
     
+    // Satu DELETE langsung; versi derived query memuat entity dulu sebelum menghapusnya
     @Modifying
-    void deleteByUsername(String username);
+    @Query("delete from LoginAttempt a where a.username = :username")
+    void deleteByUsername(@Param("username") String username);
 }
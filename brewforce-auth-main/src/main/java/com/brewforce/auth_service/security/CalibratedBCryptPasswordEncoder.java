@@ -0,0 +1,85 @@
+package com.brewforce.auth_service.security;
+
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt dengan work factor yang dipilih dari hasil pengukuran di hardware tempat service berjalan.
+ * Hash tersimpan dengan cost lebih rendah dianggap perlu di-upgrade lewat {@link #upgradeEncoding(String)};
+ * cost tidak pernah diturunkan, jadi pod yang kalibrasinya lebih rendah tidak saling menimpa hash
+ * dengan pod yang lebih cepat.
+ */
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+    private static final Logger LOG = LoggerFactory.getLogger(CalibratedBCryptPasswordEncoder.class);
+
+    // Batas bawah tidak pernah diturunkan demi latency; default Spring juga 10
+    public static final int MIN_STRENGTH = 10;
+    public static final int MAX_STRENGTH = 16;
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+    private static final String PROBE_PASSWORD = "calibration-probe";
+    private static final int PROBE_RUNS = 3;
+
+    private final int strength;
+
+    public CalibratedBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * Ukur waktu hash pada cost minimum, lalu naikkan cost (setiap +1 menggandakan waktu) selama
+     * perkiraannya masih di dalam budget.
+     */
+    public static CalibratedBCryptPasswordEncoder calibrate(Duration budget) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(MIN_STRENGTH);
+        // Pemanasan JIT agar pengukuran tidak ikut menghitung waktu interpretasi
+        probe.encode(PROBE_PASSWORD);
+
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < PROBE_RUNS; i++) {
+            long start = System.nanoTime();
+            probe.encode(PROBE_PASSWORD);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+
+        int strength = chooseStrength(fastest, budget);
+        long estimatedMs = Duration.ofNanos(fastest << (strength - MIN_STRENGTH)).toMillis();
+        if (strength == MIN_STRENGTH && fastest > budget.toNanos()) {
+            LOG.warn("BCrypt cost {} takes ~{} ms, above the {} ms budget; keeping the minimum cost",
+                    strength, estimatedMs, budget.toMillis());
+        } else {
+            LOG.info("Calibrated BCrypt cost {} (~{} ms per hash, budget {} ms)",
+                    strength, estimatedMs, budget.toMillis());
+        }
+        return new CalibratedBCryptPasswordEncoder(strength);
+    }
+
+    static int chooseStrength(long baselineNanos, Duration budget) {
+        int strength = MIN_STRENGTH;
+        long estimate = baselineNanos;
+        while (strength < MAX_STRENGTH && estimate * 2 <= budget.toNanos()) {
+            estimate *= 2;
+            strength++;
+        }
+        return strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) < strength;
+    }
+}
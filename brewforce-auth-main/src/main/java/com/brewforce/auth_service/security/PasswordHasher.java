@@ -0,0 +1,121 @@
+package com.brewforce.auth_service.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Menjalankan bcrypt di pool khusus seukuran jumlah core dengan antrean terbatas, supaya lonjakan
+ * login tidak menghabiskan thread Tomcat. Jika antrean penuh, pemanggil langsung ditolak.
+ */
+@Component
+public class PasswordHasher {
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+    private final Timer queueTimer;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    @Autowired
+    public PasswordHasher(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+            @Value("${brewforce.app.passwordHashQueueCapacity:64}") int queueCapacity,
+            @Value("${brewforce.app.passwordHashRetryAfterSeconds:1}") long retryAfterSeconds) {
+        this(passwordEncoder, meterRegistry, Runtime.getRuntime().availableProcessors(), queueCapacity,
+                retryAfterSeconds);
+    }
+
+    PasswordHasher(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry, int poolSize, int queueCapacity,
+            long retryAfterSeconds) {
+        this.passwordEncoder = passwordEncoder;
+        this.retryAfterSeconds = retryAfterSeconds;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.queueTimer = Timer.builder("brewforce.password.queue")
+                .description("Waktu tunggu di antrean sebelum hashing password dimulai")
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("brewforce.password.hash")
+                .tag("operation", "encode")
+                .description("Durasi bcrypt untuk membuat hash password")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("brewforce.password.hash")
+                .tag("operation", "matches")
+                .description("Durasi bcrypt untuk memverifikasi password")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("brewforce.password.rejected")
+                .description("Permintaan hashing yang ditolak karena antrean penuh")
+                .register(meterRegistry);
+        meterRegistry.gauge("brewforce.password.queue.size", executor.getQueue(), queue -> queue.size());
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * True jika hash tersimpan dibuat dengan cost lebih rendah dari encoder saat ini. Tidak menjalankan bcrypt.
+     */
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Timer hashTimer, Callable<T> task) {
+        long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return hashTimer.recordCallable(task);
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingRejectedException(retryAfterSeconds);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hashing password terputus", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Hashing password gagal", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
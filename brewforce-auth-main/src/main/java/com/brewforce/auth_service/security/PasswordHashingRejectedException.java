@@ -0,0 +1,16 @@
+package com.brewforce.auth_service.security;
+
+import lombok.Getter;
+
+/**
+ * Dilempar saat antrean hashing password penuh. Controller mengubahnya menjadi 503 dengan Retry-After.
+ */
+@Getter
+public class PasswordHashingRejectedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public PasswordHashingRejectedException(long retryAfterSeconds) {
+        super("Server sedang sibuk memproses login. Silakan coba lagi sebentar lagi.");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -1,9 +1,11 @@
 package com.brewforce.auth_service.security;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Date;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
@@ -43,6 +45,13 @@ public class WebSecurityConfig {
     @Autowired
     private JwtTokenFilter jwtTokenFilter;
 
+    @Value("${brewforce.app.passwordHashTargetMs:250}")
+    private long passwordHashTargetMs;
+
+    // Nilai > 0 mengunci cost dan melewati kalibrasi, mis. saat pod dengan hardware berbeda berjalan bersamaan
+    @Value("${brewforce.app.passwordHashStrength:0}")
+    private int passwordHashStrength;
+
     @Bean
     @Order(1)
     public SecurityFilterChain jwtFilterChain(HttpSecurity http) throws Exception {
@@ -90,7 +99,10 @@ public class WebSecurityConfig {
 
     @Bean
     public BCryptPasswordEncoder encoder() {
-        return new BCryptPasswordEncoder();
+        if (passwordHashStrength > 0) {
+            return new CalibratedBCryptPasswordEncoder(passwordHashStrength);
+        }
+        return CalibratedBCryptPasswordEncoder.calibrate(Duration.ofMillis(passwordHashTargetMs));
     }
 
     @Bean
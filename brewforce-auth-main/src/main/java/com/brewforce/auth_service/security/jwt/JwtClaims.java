@@ -0,0 +1,32 @@
+package com.brewforce.auth_service.security.jwt;
+
+import java.time.Instant;
+
+import io.jsonwebtoken.Claims;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Claim yang dipakai aplikasi dari satu token yang sudah diverifikasi.
+ */
+@Getter
+@AllArgsConstructor
+public class JwtClaims {
+    private final String username;
+    private final String role;
+    private final String name;
+    private final Instant expiresAt;
+
+    static JwtClaims from(Claims claims) {
+        return new JwtClaims(
+                claims.getSubject(),
+                stringClaim(claims, "role"),
+                stringClaim(claims, "name"),
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
+    }
+
+    private static String stringClaim(Claims claims, String key) {
+        Object value = claims.get(key);
+        return value instanceof String ? (String) value : null;
+    }
+}
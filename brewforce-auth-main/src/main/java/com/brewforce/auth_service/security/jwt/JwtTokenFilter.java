@@ -34,9 +34,10 @@ public class JwtTokenFilter extends OncePerRequestFilter {
         try {
             String jwt = parseJwt(request);
             
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUsernameJwtToken(jwt);
-                String role = jwtUtils.getRoleFromJwtToken(jwt);
+            JwtClaims claims = jwt != null ? jwtUtils.parseClaims(jwt) : null;
+            if (claims != null) {
+                String username = claims.getUsername();
+                String role = claims.getRole();
 
                 List<GrantedAuthority> authorities = Collections.singletonList(new SimpleGrantedAuthority(role));
 
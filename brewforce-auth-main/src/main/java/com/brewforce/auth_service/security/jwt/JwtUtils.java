@@ -2,17 +2,19 @@ package com.brewforce.auth_service.security.jwt;
 
 import java.util.Date;
 
+import javax.crypto.SecretKey;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import com.brewforce.auth_service.service.UserService;
+import com.brewforce.auth_service.model.Enduser;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
 
 @Component
 public class JwtUtils {
@@ -24,60 +26,47 @@ public class JwtUtils {
     @Value("${brewforce.app.jwtExpirationMs}")
     private int jwtExpirationMs;
 
-    @Autowired
-    UserService userService;
+    // Key HMAC dan parser bersifat immutable dan thread-safe, jadi cukup dibuat sekali
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
 
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parser().verifyWith(signingKey).build();
+    }
 
-    public String generateJwtToken(String username) {
+    // Claim diambil dari user yang sudah dimuat saat login, tanpa query tambahan
+    public String generateJwtToken(Enduser user) {
         return Jwts.builder()
-                .subject(username)
-                .claim("name", userService.getUserName(username))
-                .claim("role", userService.getUserRole(username))
+                .subject(user.getUsername())
+                .claim("name", user.getName())
+                .claim("role", user.getRole())
                 .issuedAt(new Date())
                 .expiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes()))
+                .signWith(signingKey)
                 .compact();
     }
 
     public String getUsernameJwtToken(String token) {
-        JwtParser jwtParser = Jwts.parser()
-            .verifyWith(Keys.hmacShaKeyFor(jwtSecret.getBytes()))
-            .build();
-    
-        Jws<Claims> claimsJws = jwtParser.parseSignedClaims(token);
-        return claimsJws.getPayload().getSubject();
-}
+        return jwtParser.parseSignedClaims(token).getPayload().getSubject();
+    }
 
     public String getRoleFromJwtToken(String token) {
-        JwtParser jwtParser = Jwts.parser().verifyWith(Keys.hmacShaKeyFor(jwtSecret.getBytes())).build();
-        Jws<Claims> claimsJws = jwtParser.parseSignedClaims(token);
-        Claims claims = claimsJws.getPayload();
-        Object role = claims.get("role");
-
-        if (role instanceof String) {
-            return (String) role;
-        }
-
-        return null;
+        return JwtClaims.from(jwtParser.parseSignedClaims(token).getPayload()).getRole();
     }
 
     public String getNameFromJwtToken(String token) {
-        JwtParser jwtParser = Jwts.parser().verifyWith(Keys.hmacShaKeyFor(jwtSecret.getBytes())).build();
-        Jws<Claims> claimsJws = jwtParser.parseSignedClaims(token);
-        Claims claims = claimsJws.getPayload();
-        Object name = claims.get("name");
-
-        if (name instanceof String) {
-            return (String) name;
-        }
-
-        return null;
+        return JwtClaims.from(jwtParser.parseSignedClaims(token).getPayload()).getName();
     }
 
-    public boolean validateJwtToken(String authToken) {
+    /**
+     * Verifikasi tanda tangan dan masa berlaku token satu kali, lalu kembalikan semua claim
+     * yang dibutuhkan. Mengembalikan null jika token tidak valid.
+     */
+    public JwtClaims parseClaims(String authToken) {
         try {
-            Jwts.parser().verifyWith(Keys.hmacShaKeyFor(jwtSecret.getBytes())).build().parse(authToken);
-            return true;
+            return JwtClaims.from(jwtParser.parseSignedClaims(authToken).getPayload());
         } catch (SignatureException e) {
             logger.error("Invalid JWT signature: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
@@ -89,6 +78,10 @@ public class JwtUtils {
         } catch (UnsupportedJwtException e) {
             logger.error("JWT token is unsupported: {}", e.getMessage());
         }
-        return false;
+        return null;
+    }
+
+    public boolean validateJwtToken(String authToken) {
+        return parseClaims(authToken) != null;
     }
 }
@@ -0,0 +1,56 @@
+package com.brewforce.auth_service.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Sliding window percobaan gagal untuk satu key (username atau IP) tanpa lock. Cukup menyimpan
+ * {@code maxAttempts} timestamp terakhir: window penuh jika yang paling lama masih di dalam window.
+ */
+class AttemptWindow {
+    private final AtomicLongArray failures;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private final AtomicLong lockedUntil = new AtomicLong();
+    private volatile long lastFailure;
+
+    AttemptWindow(int maxAttempts) {
+        this.failures = new AtomicLongArray(maxAttempts);
+    }
+
+    /**
+     * Catat satu kegagalan. Mengembalikan true hanya untuk thread yang memicu lockout baru,
+     * sehingga persistensi lockout dijalankan tepat sekali.
+     */
+    boolean recordFailure(long now, long windowMillis, long lockoutMillis) {
+        lastFailure = now;
+        failures.set(Math.floorMod(cursor.getAndIncrement(), failures.length()), now);
+        if (countFailures(now, windowMillis) < failures.length()) {
+            return false;
+        }
+        long current = lockedUntil.get();
+        return current <= now && lockedUntil.compareAndSet(current, now + lockoutMillis);
+    }
+
+    int countFailures(long now, long windowMillis) {
+        int count = 0;
+        for (int i = 0; i < failures.length(); i++) {
+            if (failures.get(i) > now - windowMillis) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    boolean isLocked(long now) {
+        return lockedUntil.get() > now;
+    }
+
+    long getLockedUntil() {
+        return lockedUntil.get();
+    }
+
+    boolean isIdle(long now, long windowMillis) {
+        return lastFailure <= now - windowMillis && !isLocked(now);
+    }
+}
@@ -1,14 +1,26 @@
 package com.brewforce.auth_service.service;
 
+import com.brewforce.auth_service.model.LoginAttempt;
+
 public interface LoginAttemptService {
-    public void loginFailed(String username);
+    public void loginFailed(String username, String clientIp);
 
     public void loginSuccess(String username);
 
+    public void clearLockout(String username);
+
     public boolean isLocked(String username);
 
+    public boolean isLocked(LoginAttempt attempt);
+
+    public boolean isIpLocked(String clientIp);
+
     public int getRemainingAttempts(String username);
 
     public long getLockoutMinutes(String username);
 
+    public long getLockoutMinutes(LoginAttempt attempt);
+
+    public long getIpLockoutMinutes(String clientIp);
+
 }
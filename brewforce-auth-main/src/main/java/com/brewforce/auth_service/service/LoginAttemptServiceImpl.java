@@ -1,93 +1,250 @@
 package com.brewforce.auth_service.service;
 
+import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.Optional;
-
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.brewforce.auth_service.model.LoginAttempt;
 import com.brewforce.auth_service.repository.LoginAttemptDb;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.transaction.Transactional;
 
+/**
+ * Percobaan login gagal dilacak di memori dengan sliding window per username dan (jika
+ * brewforce.app.ipLockoutEnabled) per IP klien.
+ * Database hanya disentuh saat lockout username terpicu (ditulis di background) dan saat lockout
+ * yang tersimpan perlu dihapus setelah login berhasil.
+ */
 @Service
 public class LoginAttemptServiceImpl implements LoginAttemptService {
-    @Autowired
-    private LoginAttemptDb loginAttemptDb;
+    private static final Logger LOG = LoggerFactory.getLogger(LoginAttemptServiceImpl.class);
 
     private static final int MAX_ATTEMPTS = 3;
+    // Satu IP bisa dipakai banyak user (NAT kampus, kantor), jadi batasnya lebih longgar
+    private static final int MAX_ATTEMPTS_PER_IP = 20;
+    private static final Duration ATTEMPT_WINDOW = Duration.ofMinutes(10);
     private static final Duration LOCKOUT_DURATION = Duration.ofMinutes(10);
+    // Batas jumlah key agar credential stuffing dengan username acak tidak menghabiskan heap.
+    // Di atas batas ini key lama dibuang untuk memberi tempat, bukan berhenti melacak key baru
+    static final int MAX_TRACKED_KEYS = 100_000;
+    // Jumlah entri yang dicek saat mencari korban eviction, agar biayanya tetap konstan
+    private static final int EVICTION_PROBES = 16;
+    private static final int PERSIST_QUEUE_CAPACITY = 1_000;
+
+    private final ConcurrentMap<String, AttemptWindow> usernameWindows = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AttemptWindow> ipWindows = new ConcurrentHashMap<>();
+
+    private final LoginAttemptDb loginAttemptDb;
+    private final Clock clock;
+    private final Executor lockoutWriter;
+    // Lockout per IP hanya aman jika IP klien asli sampai ke sini. Di belakang proxy yang tidak
+    // dipercaya (lihat server.tomcat.remoteip), semua user terlihat dari IP yang sama dan
+    // 20 salah password dari siapa saja akan mengunci semua orang
+    private final boolean ipLockoutEnabled;
+    private final int maxTrackedKeys;
 
-    @Override
-    @Transactional
-    public void loginFailed(String username) {
-        LoginAttempt attempt = loginAttemptDb.findById(username).orElse(null);
-        LocalDateTime now = LocalDateTime.now();
-
-        // Create new attempt if none found
-        if (attempt == null) {
-            attempt = new LoginAttempt();
-            attempt.setUsername(username);
-            attempt.setAttempts(0);
-            attempt.setLockoutTime(null);
-        }
+    @Autowired
+    public LoginAttemptServiceImpl(LoginAttemptDb loginAttemptDb,
+            @Value("${brewforce.app.ipLockoutEnabled:false}") boolean ipLockoutEnabled) {
+        this(loginAttemptDb, Clock.systemDefaultZone(), newLockoutWriter(), ipLockoutEnabled, MAX_TRACKED_KEYS);
+    }
 
-        // Reset lockout if 10 minutes passed or lockout time passed
-        if ((attempt.getLastAttempt() != null && attempt.getLastAttempt().isBefore(now.minusMinutes(10))) ||
-                (attempt.getLockoutTime() != null && attempt.getLockoutTime().isBefore(LocalDateTime.now()))) {
-            attempt.setAttempts(1); // Reset but count this attempt
-            attempt.setLockoutTime(null);
+    LoginAttemptServiceImpl(LoginAttemptDb loginAttemptDb, Clock clock, Executor lockoutWriter,
+            boolean ipLockoutEnabled) {
+        this(loginAttemptDb, clock, lockoutWriter, ipLockoutEnabled, MAX_TRACKED_KEYS);
+    }
 
-        } else {
-            attempt.setAttempts(attempt.getAttempts() + 1);
-        }
+    LoginAttemptServiceImpl(LoginAttemptDb loginAttemptDb, Clock clock, Executor lockoutWriter,
+            boolean ipLockoutEnabled, int maxTrackedKeys) {
+        this.loginAttemptDb = loginAttemptDb;
+        this.clock = clock;
+        this.lockoutWriter = lockoutWriter;
+        this.ipLockoutEnabled = ipLockoutEnabled;
+        this.maxTrackedKeys = maxTrackedKeys;
+    }
 
-        attempt.setLastAttempt(LocalDateTime.now());
+    private static ExecutorService newLockoutWriter() {
+        // Persistensi lockout bersifat best-effort: jika antrean penuh, lockout tetap berlaku di memori
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(PERSIST_QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-lockout-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
 
-        // Set new lockout
-        if (attempt.getAttempts() >= MAX_ATTEMPTS && attempt.getLockoutTime() == null) {
-            attempt.setLockoutTime(LocalDateTime.now().plus(LOCKOUT_DURATION));
+    @Override
+    public void loginFailed(String username, String clientIp) {
+        long now = clock.millis();
+
+        AttemptWindow ipWindow = ipLockoutEnabled ? window(ipWindows, clientIp, MAX_ATTEMPTS_PER_IP, now) : null;
+        if (ipWindow != null && ipWindow.recordFailure(now, ATTEMPT_WINDOW.toMillis(), LOCKOUT_DURATION.toMillis())) {
+            LOG.warn("[SECURITY] Client IP {} locked after {} failed logins", clientIp, MAX_ATTEMPTS_PER_IP);
         }
 
-        loginAttemptDb.save(attempt);
+        AttemptWindow userWindow = window(usernameWindows, username, MAX_ATTEMPTS, now);
+        if (userWindow != null && userWindow.recordFailure(now, ATTEMPT_WINDOW.toMillis(), LOCKOUT_DURATION.toMillis())) {
+            long lockedUntil = userWindow.getLockedUntil();
+            lockoutWriter.execute(() -> persistLockout(username, now, lockedUntil));
+        }
     }
 
     @Override
-    @Transactional
     public void loginSuccess(String username) {
+        usernameWindows.remove(username);
+    }
+
+    @Override
+    @Transactional
+    public void clearLockout(String username) {
         loginAttemptDb.deleteByUsername(username);
     }
 
     @Override
     public boolean isLocked(String username) {
-        Optional<LoginAttempt> attemptOpt = loginAttemptDb.findById(username);
-        if (attemptOpt.isPresent()) {
-            LoginAttempt attempt = attemptOpt.get();
-            return attempt.getLockoutTime() != null && attempt.getLockoutTime().isAfter(LocalDateTime.now());
-        }
-        return false;
+        AttemptWindow window = username != null ? usernameWindows.get(username) : null;
+        return window != null && window.isLocked(clock.millis());
+    }
+
+    @Override
+    public boolean isLocked(LoginAttempt attempt) {
+        return attempt != null && attempt.getLockoutTime() != null
+                && attempt.getLockoutTime().isAfter(LocalDateTime.now(clock));
+    }
+
+    @Override
+    public boolean isIpLocked(String clientIp) {
+        AttemptWindow window = ipLockoutEnabled && clientIp != null ? ipWindows.get(clientIp) : null;
+        return window != null && window.isLocked(clock.millis());
     }
 
     @Override
     public int getRemainingAttempts(String username) {
-        Optional<LoginAttempt> attemptOpt = loginAttemptDb.findById(username);
-        if (attemptOpt.isPresent()) {
-            return MAX_ATTEMPTS - attemptOpt.get().getAttempts();
+        AttemptWindow window = username != null ? usernameWindows.get(username) : null;
+        if (window == null) {
+            return MAX_ATTEMPTS;
         }
-        return MAX_ATTEMPTS;
+        return Math.max(0, MAX_ATTEMPTS - window.countFailures(clock.millis(), ATTEMPT_WINDOW.toMillis()));
     }
 
     @Override
     public long getLockoutMinutes(String username) {
-        Optional<LoginAttempt> attemptOpt = loginAttemptDb.findById(username);
-        if (attemptOpt.isPresent()) {
-            LoginAttempt attempt = attemptOpt.get();
-            if (attempt.getLockoutTime() != null) {
-                return Duration.between(LocalDateTime.now(), attempt.getLockoutTime()).toMinutes();
-            }
+        return lockoutMinutes(username != null ? usernameWindows.get(username) : null);
+    }
+
+    @Override
+    public long getLockoutMinutes(LoginAttempt attempt) {
+        if (attempt != null && attempt.getLockoutTime() != null) {
+            return Duration.between(LocalDateTime.now(clock), attempt.getLockoutTime()).toMinutes();
         }
         return 0L;
     }
+
+    @Override
+    public long getIpLockoutMinutes(String clientIp) {
+        return lockoutMinutes(clientIp != null ? ipWindows.get(clientIp) : null);
+    }
+
+    /**
+     * Buang window yang sudah tidak punya kegagalan di dalam window dan tidak sedang terkunci.
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdleWindows() {
+        long now = clock.millis();
+        usernameWindows.values().removeIf(window -> window.isIdle(now, ATTEMPT_WINDOW.toMillis()));
+        ipWindows.values().removeIf(window -> window.isIdle(now, ATTEMPT_WINDOW.toMillis()));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (lockoutWriter instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    int trackedKeys() {
+        return usernameWindows.size() + ipWindows.size();
+    }
+
+    private AttemptWindow window(ConcurrentMap<String, AttemptWindow> windows, String key, int maxAttempts,
+            long now) {
+        if (key == null) {
+            return null;
+        }
+        AttemptWindow window = windows.get(key);
+        if (window != null) {
+            return window;
+        }
+        if (windows.size() >= maxTrackedKeys) {
+            evictOne(windows, now);
+        }
+        return windows.computeIfAbsent(key, k -> new AttemptWindow(maxAttempts));
+    }
+
+    /**
+     * Membuang satu key untuk memberi tempat key baru. Dari beberapa entri pertama, yang sedang
+     * tidak terkunci didahulukan; jika semuanya terkunci entri pertama tetap dibuang (lockout
+     * username masih tersimpan di database). Key baru selalu dilacak sehingga batas percobaan
+     * tidak pernah terlewati hanya karena map penuh.
+     */
+    private void evictOne(ConcurrentMap<String, AttemptWindow> windows, long now) {
+        String victim = null;
+        int probes = 0;
+        for (Map.Entry<String, AttemptWindow> entry : windows.entrySet()) {
+            if (victim == null) {
+                victim = entry.getKey();
+            }
+            if (!entry.getValue().isLocked(now)) {
+                victim = entry.getKey();
+                break;
+            }
+            if (++probes >= EVICTION_PROBES) {
+                break;
+            }
+        }
+        if (victim != null) {
+            windows.remove(victim);
+        }
+    }
+
+    private long lockoutMinutes(AttemptWindow window) {
+        long now = clock.millis();
+        if (window == null || !window.isLocked(now)) {
+            return 0L;
+        }
+        return Duration.ofMillis(window.getLockedUntil() - now).toMinutes();
+    }
+
+    private void persistLockout(String username, long lastFailure, long lockedUntil) {
+        try {
+            LoginAttempt attempt = new LoginAttempt(username, MAX_ATTEMPTS,
+                    toLocalDateTime(lastFailure), toLocalDateTime(lockedUntil));
+            loginAttemptDb.save(attempt);
+        } catch (RuntimeException e) {
+            LOG.error("Failed to persist lockout for {}: {}", username, e.getMessage());
+        }
+    }
+
+    private LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), clock.getZone());
+    }
 }
@@ -0,0 +1,7 @@
+package com.brewforce.auth_service.service;
+
+import com.brewforce.auth_service.model.Enduser;
+
+public interface LoginService {
+    Enduser authenticate(String username, String password, String clientIp);
+}
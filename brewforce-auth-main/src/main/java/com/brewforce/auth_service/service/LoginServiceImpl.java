@@ -0,0 +1,101 @@
+package com.brewforce.auth_service.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import com.brewforce.auth_service.model.Enduser;
+import com.brewforce.auth_service.model.LoginAttempt;
+import com.brewforce.auth_service.model.LoginCandidate;
+import com.brewforce.auth_service.repository.EnduserDb;
+import com.brewforce.auth_service.security.PasswordHasher;
+import com.brewforce.auth_service.security.PasswordHashingRejectedException;
+
+@Service
+public class LoginServiceImpl implements LoginService {
+    private static final Logger LOG = LoggerFactory.getLogger(LoginServiceImpl.class);
+
+    private static final String USER_NOT_FOUND_PASSWORD = "userNotFoundPassword";
+    private static final String LOCKED_MESSAGE =
+            "Akun terkunci karena 3 kali percobaan login gagal. Silakan coba lagi setelah ";
+
+    @Autowired
+    private EnduserDb enduserDb;
+
+    @Autowired
+    private LoginAttemptServiceImpl loginAttemptService;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    private volatile String userNotFoundEncodedPassword;
+
+    /**
+     * Menolak username/IP yang sedang terkunci tanpa menyentuh database, lalu memuat user dan
+     * lockout tersimpan sekali dan memverifikasi password. Maksimal dua query per login.
+     */
+    @Override
+    public Enduser authenticate(String username, String password, String clientIp) {
+        if (loginAttemptService.isIpLocked(clientIp)) {
+            throw new LockedException("Terlalu banyak percobaan login gagal dari alamat ini. Silakan coba lagi setelah "
+                    + loginAttemptService.getIpLockoutMinutes(clientIp) + " menit.");
+        }
+        if (loginAttemptService.isLocked(username)) {
+            throw new LockedException(LOCKED_MESSAGE + loginAttemptService.getLockoutMinutes(username) + " menit.");
+        }
+
+        LoginCandidate candidate = enduserDb.findLoginCandidate(username);
+
+        if (candidate == null) {
+            // Tetap jalankan bcrypt agar waktu respons tidak membocorkan username yang tidak terdaftar
+            passwordHasher.matches(password, getUserNotFoundEncodedPassword());
+            throw new UsernameNotFoundException("User not found: " + username);
+        }
+
+        // Lockout yang tersimpan berasal dari instance lain atau sebelum restart
+        LoginAttempt attempt = candidate.getAttempt();
+        if (loginAttemptService.isLocked(attempt)) {
+            throw new LockedException(LOCKED_MESSAGE + loginAttemptService.getLockoutMinutes(attempt) + " menit.");
+        }
+
+        Enduser user = candidate.getUser();
+        if (password == null || !passwordHasher.matches(password, user.getPassword())) {
+            throw new BadCredentialsException("Bad credentials");
+        }
+
+        if (passwordHasher.upgradeEncoding(user.getPassword())) {
+            rehash(user, password);
+        }
+
+        loginAttemptService.loginSuccess(username);
+        if (attempt != null) {
+            loginAttemptService.clearLockout(username);
+        }
+        return user;
+    }
+
+    /**
+     * Simpan ulang hash dengan cost hasil kalibrasi. Gagal di sini tidak menggagalkan login;
+     * upgrade dicoba lagi pada login berikutnya.
+     */
+    private void rehash(Enduser user, String password) {
+        try {
+            enduserDb.updatePassword(user.getUserID(), user.getPassword(), passwordHasher.encode(password));
+        } catch (PasswordHashingRejectedException e) {
+            LOG.debug("Skipping password rehash for {}: hashing queue full", user.getUsername());
+        } catch (RuntimeException e) {
+            LOG.warn("Password rehash failed for {}: {}", user.getUsername(), e.getMessage());
+        }
+    }
+
+    private String getUserNotFoundEncodedPassword() {
+        if (userNotFoundEncodedPassword == null) {
+            userNotFoundEncodedPassword = passwordHasher.encode(USER_NOT_FOUND_PASSWORD);
+        }
+        return userNotFoundEncodedPassword;
+    }
+}
@@ -8,11 +8,11 @@ import java.util.UUID;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import com.brewforce.auth_service.model.Enduser;
 import com.brewforce.auth_service.repository.EnduserDb;
+import com.brewforce.auth_service.security.PasswordHasher;
 
 @Service
 public class UserServiceImpl implements UserService {
@@ -20,6 +20,9 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private EnduserDb enduserDb;
 
+    @Autowired
+    private PasswordHasher passwordHasher;
+
     @Override
     public Enduser register(Enduser request) {
         // 1. Cek apakah username sudah ada
@@ -50,8 +53,8 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public String hashPassword(String password) {
-        BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
-        return passwordEncoder.encode(password);
+        // Encoder bersama dan pool hashing terbatas, bukan encoder baru di thread request
+        return passwordHasher.encode(password);
     }
 
     @Override
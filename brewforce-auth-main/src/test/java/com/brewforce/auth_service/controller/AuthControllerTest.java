@@ -1,10 +1,11 @@
 package com.brewforce.auth_service.controller;
 
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import org.mockito.ArgumentCaptor;
@@ -24,11 +25,8 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.LockedException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import com.brewforce.auth_service.model.Enduser;
@@ -36,7 +34,9 @@ import com.brewforce.auth_service.service.UserServiceImpl;
 import com.brewforce.auth_service.service.AuditLogService;
 import com.brewforce.auth_service.service.AuditLogServiceImpl;
 import com.brewforce.auth_service.service.LoginAttemptServiceImpl;
+import com.brewforce.auth_service.service.LoginServiceImpl;
 import com.brewforce.auth_service.dto.request.LoginJwtRequestDTO;
+import com.brewforce.auth_service.security.PasswordHashingRejectedException;
 import com.brewforce.auth_service.security.jwt.JwtUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -51,7 +51,7 @@ public class AuthControllerTest {
     private UserServiceImpl userService;
 
     @Mock
-    private AuthenticationManager authenticationManager;
+    private LoginServiceImpl loginService;
 
     @Mock
     private LoginAttemptServiceImpl loginAttemptService;
@@ -230,13 +230,8 @@ public class AuthControllerTest {
         loginRequest.setUsername("testuser");
         loginRequest.setPassword("Test123!@#");
 
-        Authentication authentication = mock(Authentication.class);
-        when(authentication.getName()).thenReturn("testuser");
-        when(authenticationManager.authenticate(any())).thenReturn(authentication);
-        when(loginAttemptService.isLocked("testuser")).thenReturn(false);
-        when(userService.getUserByUsername("testuser")).thenReturn(testUser);
-        when(userService.getUserRole("testuser")).thenReturn("PEMBELI");
-        when(jwtUtils.generateJwtToken("testuser")).thenReturn("test.jwt.token");
+        when(loginService.authenticate(eq("testuser"), eq("Test123!@#"), any())).thenReturn(testUser);
+        when(jwtUtils.generateJwtToken(testUser)).thenReturn("test.jwt.token");
 
         ObjectMapper objectMapper = new ObjectMapper();
         String loginJson = objectMapper.writeValueAsString(loginRequest);
@@ -246,9 +241,11 @@ public class AuthControllerTest {
                 .content(loginJson))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.data.token").value("test.jwt.token"))
+                .andExpect(jsonPath("$.data.name").value("Test User"))
                 .andExpect(jsonPath("$.data.role").value("PEMBELI"));
 
-        verify(loginAttemptService).loginSuccess("testuser"); // A07: Verify attempt reset
+        // User yang sudah dimuat saat autentikasi dipakai ulang, tanpa lookup tambahan
+        verifyNoInteractions(userService, loginAttemptService);
     }
      
     // A07:2021 - Identification and Authentication Failures
@@ -259,8 +256,7 @@ public class AuthControllerTest {
         loginRequest.setUsername("testuser");
         loginRequest.setPassword("wrongpassword");
 
-        when(loginAttemptService.isLocked("testuser")).thenReturn(false);
-        when(authenticationManager.authenticate(any()))
+        when(loginService.authenticate(any(), any(), any()))
                 .thenThrow(new BadCredentialsException("Bad credentials"));
         when(loginAttemptService.getRemainingAttempts("testuser")).thenReturn(2);
 
@@ -270,7 +266,7 @@ public class AuthControllerTest {
                 .andExpect(status().isUnauthorized())
                 .andExpect(jsonPath("$.message").value("Username atau password salah!"));
 
-        verify(loginAttemptService).loginFailed("testuser"); // A07: Verify attempt tracking
+        verify(loginAttemptService).loginFailed("testuser", "127.0.0.1"); // A07: Verify attempt tracking
     }
 
     // A05:2021 - Security Misconfiguration
@@ -281,8 +277,8 @@ public class AuthControllerTest {
         loginRequest.setUsername("lockeduser");
         loginRequest.setPassword("anyPassword");
 
-        when(loginAttemptService.isLocked("lockeduser")).thenReturn(true);
-        when(loginAttemptService.getLockoutMinutes("lockeduser")).thenReturn(10L);
+        when(loginService.authenticate(eq("lockeduser"), eq("anyPassword"), any())).thenThrow(new LockedException(
+                "Akun terkunci karena 3 kali percobaan login gagal. Silakan coba lagi setelah 10 menit."));
 
         mockMvc.perform(post("/api/login")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -290,6 +286,8 @@ public class AuthControllerTest {
                 .andExpect(status().isUnauthorized())
                 .andExpect(jsonPath("$.message")
                         .value("Akun terkunci karena 3 kali percobaan login gagal. Silakan coba lagi setelah 10 menit."));
+
+        verify(loginAttemptService, never()).loginFailed(any(), any());
     }
 
     // A07:2021 - Identification and Authentication Failures
@@ -301,8 +299,7 @@ public class AuthControllerTest {
         loginRequest.setUsername("notfounduser");
         loginRequest.setPassword("anyPassword");
 
-        when(loginAttemptService.isLocked("notfounduser")).thenReturn(false);
-        when(authenticationManager.authenticate(any()))
+        when(loginService.authenticate(any(), any(), any()))
                 .thenThrow(new UsernameNotFoundException("User not found"));
         when(loginAttemptService.getRemainingAttempts("notfounduser")).thenReturn(0);
         when(loginAttemptService.getLockoutMinutes("notfounduser")).thenReturn(15L);
@@ -322,8 +319,7 @@ public class AuthControllerTest {
         loginRequest.setUsername("testuser");
         loginRequest.setPassword("Test123!@#");
 
-        when(loginAttemptService.isLocked("testuser")).thenReturn(false);
-        when(authenticationManager.authenticate(any()))
+        when(loginService.authenticate(any(), any(), any()))
                 .thenThrow(new RuntimeException("Database connection failed"));
 
         mockMvc.perform(post("/api/login")
@@ -334,6 +330,27 @@ public class AuthControllerTest {
                 .andExpect(jsonPath("$.data").doesNotExist()); // A08: No sensitive data exposed
     }
 
+    // A04:2021 - Insecure Design
+    @Test
+    public void testLoginWhenHashingQueueFull_ShouldReturn503WithRetryAfter() throws Exception {
+        LoginJwtRequestDTO loginRequest = new LoginJwtRequestDTO();
+        loginRequest.setUsername("testuser");
+        loginRequest.setPassword("Test123!@#");
+
+        when(loginService.authenticate(any(), any(), any()))
+                .thenThrow(new PasswordHashingRejectedException(1));
+
+        mockMvc.perform(post("/api/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(loginRequest)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.data").doesNotExist());
+
+        // Penolakan karena beban bukan percobaan login gagal
+        verify(loginAttemptService, never()).loginFailed(any(), any());
+    }
+
     // A02:2021 - Cryptographic Failures
     @Test
     public void testJWTTokenGenerationAfterLogin() throws Exception {
@@ -342,13 +359,8 @@ public class AuthControllerTest {
         loginRequest.setUsername("testuser");
         loginRequest.setPassword("Test123!@#");
 
-        Authentication authentication = mock(Authentication.class);
-        when(authentication.getName()).thenReturn("testuser");
-        when(authenticationManager.authenticate(any())).thenReturn(authentication);
-        when(loginAttemptService.isLocked("testuser")).thenReturn(false);
-        when(userService.getUserByUsername("testuser")).thenReturn(testUser);
-        when(userService.getUserRole("testuser")).thenReturn("PEMBELI");
-        when(jwtUtils.generateJwtToken("testuser")).thenReturn("valid.jwt.token");
+        when(loginService.authenticate(eq("testuser"), eq("Test123!@#"), any())).thenReturn(testUser);
+        when(jwtUtils.generateJwtToken(testUser)).thenReturn("valid.jwt.token");
 
         mockMvc.perform(post("/api/login")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -367,11 +379,8 @@ public class AuthControllerTest {
     sqlInjectionRequest.setUsername("admin'; DROP TABLE users; --");
     sqlInjectionRequest.setPassword("password'; DELETE FROM users; --");
 
-    when(loginAttemptService.isLocked(sqlInjectionRequest.getUsername())).thenReturn(false);
-    when(authenticationManager.authenticate(argThat(auth ->
-            auth instanceof UsernamePasswordAuthenticationToken &&
-            ((UsernamePasswordAuthenticationToken) auth).getPrincipal().equals(sqlInjectionRequest.getUsername())
-    ))).thenThrow(new BadCredentialsException("Bad credentials"));
+    when(loginService.authenticate(eq(sqlInjectionRequest.getUsername()), any(), any()))
+            .thenThrow(new BadCredentialsException("Bad credentials"));
 
     mockMvc.perform(post("/api/login")
             .contentType(MediaType.APPLICATION_JSON)
@@ -383,11 +392,8 @@ public class AuthControllerTest {
     xssRequest.setUsername("<script>alert('XSS')</script>");
     xssRequest.setPassword("anything");
 
-    when(loginAttemptService.isLocked(xssRequest.getUsername())).thenReturn(false);
-    when(authenticationManager.authenticate(argThat(auth ->
-            auth instanceof UsernamePasswordAuthenticationToken &&
-            ((UsernamePasswordAuthenticationToken) auth).getPrincipal().equals(xssRequest.getUsername())
-    ))).thenThrow(new BadCredentialsException("Bad credentials"));
+    when(loginService.authenticate(eq(xssRequest.getUsername()), any(), any()))
+            .thenThrow(new BadCredentialsException("Bad credentials"));
 
     mockMvc.perform(post("/api/login")
             .contentType(MediaType.APPLICATION_JSON)
@@ -5,6 +5,7 @@ import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import java.time.Instant;
 import java.util.Date;
 
 import java.util.Arrays;
@@ -24,6 +25,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import com.brewforce.auth_service.model.Enduser;
+import com.brewforce.auth_service.security.jwt.JwtClaims;
 import com.brewforce.auth_service.security.jwt.JwtUtils;
 import com.brewforce.auth_service.service.UserService;
 
@@ -90,8 +92,8 @@ public class UserControllerTest {
 
     @Test
     void whenGetCurrentUser_withValidToken_thenSuccess() throws Exception {
-        when(jwtUtils.validateJwtToken("valid.jwt.token")).thenReturn(true);
-        when(jwtUtils.getUsernameJwtToken("valid.jwt.token")).thenReturn("testuser");
+        when(jwtUtils.parseClaims("valid.jwt.token"))
+                .thenReturn(new JwtClaims("testuser", "KASIR", "Test User", Instant.now().plusSeconds(3600)));
         when(userService.getUserByUsername("testuser")).thenReturn(testUser);
 
         mockMvc.perform(get("/api/users/current")
@@ -104,7 +106,7 @@ public class UserControllerTest {
 
     @Test
     void whenGetCurrentUser_withInvalidToken_thenUnauthorized() throws Exception {
-        when(jwtUtils.validateJwtToken("invalid.token")).thenReturn(false);
+        when(jwtUtils.parseClaims("invalid.token")).thenReturn(null);
 
         mockMvc.perform(get("/api/users/current")
                 .header("Authorization", "Bearer invalid.token"))
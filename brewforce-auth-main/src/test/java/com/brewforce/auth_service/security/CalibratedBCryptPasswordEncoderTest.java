@@ -0,0 +1,56 @@
+package com.brewforce.auth_service.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+public class CalibratedBCryptPasswordEncoderTest {
+
+    @Test
+    void chooseStrength_ShouldDoubleCostWhileWithinBudget() {
+        // 40 ms pada cost 10 -> 80 ms (11) -> 160 ms (12) -> 320 ms melebihi budget 250 ms
+        assertEquals(12, CalibratedBCryptPasswordEncoder.chooseStrength(
+                Duration.ofMillis(40).toNanos(), Duration.ofMillis(250)));
+    }
+
+    @Test
+    void chooseStrength_OnSlowHardware_ShouldNeverGoBelowMinimum() {
+        assertEquals(CalibratedBCryptPasswordEncoder.MIN_STRENGTH, CalibratedBCryptPasswordEncoder.chooseStrength(
+                Duration.ofMillis(400).toNanos(), Duration.ofMillis(250)));
+    }
+
+    @Test
+    void chooseStrength_OnFastHardware_ShouldCapAtMaximum() {
+        assertEquals(CalibratedBCryptPasswordEncoder.MAX_STRENGTH, CalibratedBCryptPasswordEncoder.chooseStrength(
+                Duration.ofMillis(1).toNanos(), Duration.ofSeconds(10)));
+    }
+
+    @Test
+    void upgradeEncoding_ShouldOnlyFlagLowerCost() {
+        CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(11);
+
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(10).encode("Test123!@#")));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("Test123!@#")));
+        assertFalse(encoder.upgradeEncoding("not-a-bcrypt-hash"));
+        assertFalse(encoder.upgradeEncoding(null));
+    }
+
+    @Test
+    void upgradeEncoding_WithHigherCostFromFasterPod_ShouldNotDowngrade() {
+        CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(11);
+
+        assertFalse(encoder.upgradeEncoding("$2a$12$abcdefghijklmnopqrstuuabcdefghijklmnopqrstuvwxyz01234"));
+    }
+
+    @Test
+    void rehashedPassword_ShouldStillMatch() {
+        String oldHash = new BCryptPasswordEncoder(10).encode("Test123!@#");
+        CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(11);
+
+        assertTrue(encoder.matches("Test123!@#", oldHash));
+        assertTrue(encoder.matches("Test123!@#", encoder.encode("Test123!@#")));
+    }
+}
@@ -0,0 +1,87 @@
+package com.brewforce.auth_service.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class PasswordHasherTest {
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHasher passwordHasher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        passwordHasher = new PasswordHasher(passwordEncoder, meterRegistry, 1, 1, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHasher.shutdown();
+    }
+
+    @Test
+    void whenMatches_thenDelegateAndRecordTimers() {
+        when(passwordEncoder.matches("Test123!@#", "$2a$10$hashed")).thenReturn(true);
+
+        assertTrue(passwordHasher.matches("Test123!@#", "$2a$10$hashed"));
+
+        assertEquals(1, meterRegistry.get("brewforce.password.hash").tag("operation", "matches").timer().count());
+        assertEquals(1, meterRegistry.get("brewforce.password.queue").timer().count());
+    }
+
+    @Test
+    void whenEncoderThrows_thenPropagateOriginalException() {
+        when(passwordEncoder.encode("secret")).thenThrow(new IllegalArgumentException("bad input"));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> passwordHasher.encode("secret"));
+        assertEquals("bad input", exception.getMessage());
+    }
+
+    @Test
+    void whenQueueFull_thenRejectFastWithRetryAfter() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "hash";
+        });
+
+        // Satu thread sibuk, satu slot antrean terisi, permintaan ketiga harus ditolak
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> passwordHasher.encode("a"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordHasher.encode("b"));
+        while (!queued.isDone() && meterRegistry.get("brewforce.password.queue.size").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        PasswordHashingRejectedException exception = assertThrows(PasswordHashingRejectedException.class,
+                () -> passwordHasher.encode("c"));
+        assertEquals(2, exception.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("brewforce.password.rejected").counter().count());
+
+        release.countDown();
+        assertEquals("hash", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hash", queued.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -17,7 +17,6 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -31,7 +30,7 @@ public class AuditLogServiceImplTest {
     private UserServiceImpl userService;
     
     @Mock
-    private AuthenticationManager authenticationManager;
+    private LoginServiceImpl loginService;
     
     @Mock
     private LoginAttemptServiceImpl loginAttemptService;
@@ -66,8 +65,7 @@ public class AuditLogServiceImplTest {
         request.setUsername("testuser");
         request.setPassword("wrongpass");
         
-        when(loginAttemptService.isLocked(anyString())).thenReturn(false);
-        when(authenticationManager.authenticate(any()))
+        when(loginService.authenticate(anyString(), anyString(), anyString()))
             .thenThrow(new BadCredentialsException("Bad credentials"));
         when(loginAttemptService.getRemainingAttempts(anyString())).thenReturn(2);
 
@@ -78,7 +76,7 @@ public class AuditLogServiceImplTest {
         
         // Verify logging
         verify(auditLogService).logFailedLogin("testuser");
-        verify(loginAttemptService).loginFailed("testuser");
+        verify(loginAttemptService).loginFailed(eq("testuser"), anyString());
     }
 
 }
\ No newline at end of file
@@ -4,13 +4,16 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -23,144 +26,211 @@ public class LoginAttemptServiceImplTest {
     @Mock
     private LoginAttemptDb loginAttemptDb;
 
-    @InjectMocks
     private LoginAttemptServiceImpl loginAttemptService;
 
-    private LoginAttempt existingAttempt;
+    private TestClock clock;
     private final String TEST_USERNAME = "testuser";
-    private final LocalDateTime NOW = LocalDateTime.now();
+    private final String CLIENT_IP = "10.0.0.7";
 
     @BeforeEach
     void setUp() {
-        existingAttempt = new LoginAttempt();
-        existingAttempt.setUsername(TEST_USERNAME);
-        existingAttempt.setAttempts(2);
-        existingAttempt.setLastAttempt(NOW.minusMinutes(5));
+        clock = new TestClock(Instant.parse("2025-05-01T08:00:00Z"));
+        // Executor langsung agar persistensi lockout bisa diverifikasi secara sinkron
+        loginAttemptService = new LoginAttemptServiceImpl(loginAttemptDb, clock, Runnable::run, true);
     }
 
     // A07:2021 - Identification and Authentication Failures
     @Test
-    void whenLoginFailedFirstTime_thenCreateNewAttempt() {
-        when(loginAttemptDb.findById(TEST_USERNAME)).thenReturn(Optional.empty());
-        when(loginAttemptDb.save(any(LoginAttempt.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    void whenLoginFailedUnderMaxAttempts_thenCountInMemoryOnly() {
+        loginAttemptService.loginFailed(TEST_USERNAME, CLIENT_IP);
+        loginAttemptService.loginFailed(TEST_USERNAME, CLIENT_IP);
 
-        loginAttemptService.loginFailed(TEST_USERNAME);
-
-        verify(loginAttemptDb).findById(TEST_USERNAME);
-        verify(loginAttemptDb).save(argThat(attempt -> 
-            attempt.getUsername().equals(TEST_USERNAME) && 
-            attempt.getAttempts() == 1 &&
-            attempt.getLockoutTime() == null
-        ));
+        assertEquals(1, loginAttemptService.getRemainingAttempts(TEST_USERNAME));
+        assertFalse(loginAttemptService.isLocked(TEST_USERNAME));
+        verifyNoInteractions(loginAttemptDb);
     }
 
-    // A07:2021 - Identification and Authentication Failures
+    // A05:2021 - Security Misconfiguration
     @Test
-    void whenLoginFailedUnderMaxAttempts_thenIncrementAttempts() {
-        existingAttempt.setAttempts(1);
-        when(loginAttemptDb.findById(TEST_USERNAME)).thenReturn(Optional.of(existingAttempt));
-        when(loginAttemptDb.save(any(LoginAttempt.class))).thenAnswer(invocation -> invocation.getArgument(0));
-
-        loginAttemptService.loginFailed(TEST_USERNAME);
+    void whenLoginFailedReachesMaxAttempts_thenLockAndPersistOnce() {
+        for (int i = 0; i < 3; i++) {
+            loginAttemptService.loginFailed(TEST_USERNAME, CLIENT_IP);
+        }
 
-        verify(loginAttemptDb).save(argThat(attempt -> 
-            attempt.getAttempts() == 2 &&
-            attempt.getLockoutTime() == null
+        assertTrue(loginAttemptService.isLocked(TEST_USERNAME));
+        assertEquals(0, loginAttemptService.getRemainingAttempts(TEST_USERNAME));
+        assertEquals(10, loginAttemptService.getLockoutMinutes(TEST_USERNAME));
+        verify(loginAttemptDb).save(argThat(attempt ->
+            attempt.getUsername().equals(TEST_USERNAME) &&
+            attempt.getAttempts() == 3 &&
+            attempt.getLockoutTime().equals(LocalDateTime.of(2025, 5, 1, 8, 10))
         ));
+
+        // Kegagalan tambahan selama lockout tidak memicu penulisan ulang
+        loginAttemptService.loginFailed(TEST_USERNAME, CLIENT_IP);
+        verify(loginAttemptDb, times(1)).save(any(LoginAttempt.class));
     }
 
-    // A05:2021 - Security Misconfiguration
+    // A07:2021 - Identification and Authentication Failures
     @Test
-    void whenLoginFailedReachesMaxAttempts_thenLockAccount() {
-        existingAttempt.setAttempts(2);
-        when(loginAttemptDb.findById(TEST_USERNAME)).thenReturn(Optional.of(existingAttempt));
-        when(loginAttemptDb.save(any(LoginAttempt.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    void whenFailuresSlideOutOfWindow_thenNotCounted() {
+        loginAttemptService.loginFailed(TEST_USERNAME, CLIENT_IP);
+        loginAttemptService.loginFailed(TEST_USERNAME, CLIENT_IP);
+        clock.advance(Duration.ofMinutes(11));
 
-        loginAttemptService.loginFailed(TEST_USERNAME);
+        loginAttemptService.loginFailed(TEST_USERNAME, CLIENT_IP);
 
-        verify(loginAttemptDb).save(argThat(attempt -> 
-            attempt.getAttempts() == 3 &&
-            attempt.getLockoutTime() != null &&
-            attempt.getLockoutTime().isAfter(NOW)
-        ));
+        assertEquals(2, loginAttemptService.getRemainingAttempts(TEST_USERNAME));
+        assertFalse(loginAttemptService.isLocked(TEST_USERNAME));
     }
 
     // A07:2021 - Identification and Authentication Failures
     @Test
-    void whenLoginFailedAfterLockoutExpired_thenResetAttempts() {
-        existingAttempt.setAttempts(3);
-        existingAttempt.setLockoutTime(NOW.minusMinutes(11));
-        existingAttempt.setLastAttempt(NOW.minusMinutes(11));
-        when(loginAttemptDb.findById(TEST_USERNAME)).thenReturn(Optional.of(existingAttempt));
-        when(loginAttemptDb.save(any(LoginAttempt.class))).thenAnswer(invocation -> invocation.getArgument(0));
-
-        loginAttemptService.loginFailed(TEST_USERNAME);
-
-        verify(loginAttemptDb).save(argThat(attempt -> 
-            attempt.getAttempts() == 1 &&
-            attempt.getLockoutTime() == null
-        ));
+    void whenLockoutExpired_thenNextFailureStartsFresh() {
+        for (int i = 0; i < 3; i++) {
+            loginAttemptService.loginFailed(TEST_USERNAME, CLIENT_IP);
+        }
+        clock.advance(Duration.ofMinutes(10));
+
+        assertFalse(loginAttemptService.isLocked(TEST_USERNAME));
+        loginAttemptService.loginFailed(TEST_USERNAME, CLIENT_IP);
+        assertEquals(2, loginAttemptService.getRemainingAttempts(TEST_USERNAME));
     }
 
     // A07:2021 - Identification and Authentication Failures
     @Test
-    void whenLoginSuccess_thenDeleteAttempt() {
+    void whenLoginSuccess_thenResetInMemory() {
+        loginAttemptService.loginFailed(TEST_USERNAME, CLIENT_IP);
+
         loginAttemptService.loginSuccess(TEST_USERNAME);
 
-        verify(loginAttemptDb).deleteByUsername(TEST_USERNAME);
+        assertEquals(3, loginAttemptService.getRemainingAttempts(TEST_USERNAME));
+        verifyNoInteractions(loginAttemptDb);
     }
 
-    // A05:2021 - Security Misconfiguration
+    // A07:2021 - Identification and Authentication Failures
     @Test
-    void whenIsLockedWithActiveLockout_thenReturnTrue() {
-        existingAttempt.setLockoutTime(NOW.plusMinutes(5));
-        when(loginAttemptDb.findById(TEST_USERNAME)).thenReturn(Optional.of(existingAttempt));
+    void whenClearLockout_thenDeleteAttempt() {
+        loginAttemptService.clearLockout(TEST_USERNAME);
 
-        assertTrue(loginAttemptService.isLocked(TEST_USERNAME));
+        verify(loginAttemptDb).deleteByUsername(TEST_USERNAME);
     }
 
     // A05:2021 - Security Misconfiguration
     @Test
-    void whenIsLockedWithExpiredLockout_thenReturnFalse() {
-        existingAttempt.setLockoutTime(NOW.minusMinutes(5));
-        when(loginAttemptDb.findById(TEST_USERNAME)).thenReturn(Optional.of(existingAttempt));
-
-        assertFalse(loginAttemptService.isLocked(TEST_USERNAME));
+    void whenManyUsernamesFailFromOneIp_thenLockIp() {
+        for (int i = 0; i < 20; i++) {
+            loginAttemptService.loginFailed("user" + i, CLIENT_IP);
+        }
+
+        assertTrue(loginAttemptService.isIpLocked(CLIENT_IP));
+        assertEquals(10, loginAttemptService.getIpLockoutMinutes(CLIENT_IP));
+        assertFalse(loginAttemptService.isIpLocked("10.0.0.8"));
+        // Tiap username hanya gagal sekali, jadi tidak ada lockout username yang perlu disimpan
+        verifyNoInteractions(loginAttemptDb);
     }
 
-    // A07:2021 - Identification and Authentication Failures
+    // A04:2021 - Insecure Design
     @Test
-    void whenGetRemainingAttempts_thenReturnCorrectValue() {
-        when(loginAttemptDb.findById(TEST_USERNAME)).thenReturn(Optional.of(existingAttempt));
+    void whenIpLockoutDisabled_thenSharedProxyIpNeverLocked() {
+        loginAttemptService = new LoginAttemptServiceImpl(loginAttemptDb, clock, Runnable::run, false);
+        for (int i = 0; i < 25; i++) {
+            loginAttemptService.loginFailed("user" + i, CLIENT_IP);
+        }
+
+        assertFalse(loginAttemptService.isIpLocked(CLIENT_IP));
+        assertEquals(0, loginAttemptService.getIpLockoutMinutes(CLIENT_IP));
+        assertEquals(25, loginAttemptService.trackedKeys());
+    }
 
-        assertEquals(1, loginAttemptService.getRemainingAttempts(TEST_USERNAME));
+    // A05:2021 - Security Misconfiguration
+    @Test
+    void whenIsLockedWithPersistedAttempt_thenCompareLockoutTime() {
+        LoginAttempt active = new LoginAttempt(TEST_USERNAME, 3, null, LocalDateTime.of(2025, 5, 1, 8, 5));
+        LoginAttempt expired = new LoginAttempt(TEST_USERNAME, 3, null, LocalDateTime.of(2025, 5, 1, 7, 55));
+
+        assertTrue(loginAttemptService.isLocked(active));
+        assertEquals(5, loginAttemptService.getLockoutMinutes(active));
+        assertFalse(loginAttemptService.isLocked(expired));
+        assertFalse(loginAttemptService.isLocked((LoginAttempt) null));
+        verifyNoInteractions(loginAttemptDb);
     }
 
     // A07:2021 - Identification and Authentication Failures
     @Test
     void whenGetRemainingAttemptsForNewUser_thenReturnMaxAttempts() {
-        when(loginAttemptDb.findById(TEST_USERNAME)).thenReturn(Optional.empty());
-
         assertEquals(3, loginAttemptService.getRemainingAttempts(TEST_USERNAME));
+        assertEquals(0, loginAttemptService.getLockoutMinutes(TEST_USERNAME));
     }
 
     // A05:2021 - Security Misconfiguration
     @Test
-    void whenGetLockoutMinutesWithActiveLockout_thenReturnPositive() {
-        existingAttempt.setLockoutTime(NOW.plusMinutes(10));
-        when(loginAttemptDb.findById(TEST_USERNAME)).thenReturn(Optional.of(existingAttempt));
+    void whenPersistFails_thenLockoutStillEnforcedInMemory() {
+        when(loginAttemptDb.save(any(LoginAttempt.class))).thenThrow(new RuntimeException("Database down"));
 
-        long minutes = loginAttemptService.getLockoutMinutes(TEST_USERNAME);
+        for (int i = 0; i < 3; i++) {
+            loginAttemptService.loginFailed(TEST_USERNAME, CLIENT_IP);
+        }
 
-        assertTrue(minutes > 0 && minutes <= 10);
+        assertTrue(loginAttemptService.isLocked(TEST_USERNAME));
     }
 
-    // A05:2021 - Security Misconfiguration
     @Test
-    void whenGetLockoutMinutesWithoutLockout_thenReturnZero() {
-        when(loginAttemptDb.findById(TEST_USERNAME)).thenReturn(Optional.of(existingAttempt));
+    void whenWindowsIdle_thenEvicted() {
+        loginAttemptService.loginFailed(TEST_USERNAME, CLIENT_IP);
+        for (int i = 0; i < 3; i++) {
+            loginAttemptService.loginFailed("lockeduser", CLIENT_IP);
+        }
+        clock.advance(Duration.ofMinutes(10).plusSeconds(1));
 
-        assertEquals(0, loginAttemptService.getLockoutMinutes(TEST_USERNAME));
+        loginAttemptService.evictIdleWindows();
+
+        assertEquals(0, loginAttemptService.trackedKeys());
     }
-    
-}
\ No newline at end of file
+
+    // A07:2021 - Identification and Authentication Failures
+    @Test
+    void whenTrackedKeysAtCapacity_thenNewUsernameStillLocksAfterMaxAttempts() {
+        int maxTrackedKeys = 10;
+        loginAttemptService = new LoginAttemptServiceImpl(loginAttemptDb, clock, Runnable::run, true, maxTrackedKeys);
+        for (int i = 0; i < maxTrackedKeys; i++) {
+            loginAttemptService.loginFailed("stuffed" + i, CLIENT_IP);
+        }
+
+        for (int i = 0; i < 3; i++) {
+            loginAttemptService.loginFailed(TEST_USERNAME, CLIENT_IP);
+        }
+
+        assertTrue(loginAttemptService.isLocked(TEST_USERNAME));
+        verify(loginAttemptDb).save(any(LoginAttempt.class));
+        // maxTrackedKeys username + satu window IP
+        assertEquals(maxTrackedKeys + 1, loginAttemptService.trackedKeys());
+    }
+
+    private static class TestClock extends Clock {
+        private Instant now;
+
+        TestClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.brewforce.auth_service.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import com.brewforce.auth_service.model.Enduser;
+import com.brewforce.auth_service.model.LoginAttempt;
+import com.brewforce.auth_service.model.LoginCandidate;
+import com.brewforce.auth_service.repository.EnduserDb;
+import com.brewforce.auth_service.security.PasswordHasher;
+import com.brewforce.auth_service.security.PasswordHashingRejectedException;
+
+@ExtendWith(MockitoExtension.class)
+public class LoginServiceImplTest {
+
+    @Mock
+    private EnduserDb enduserDb;
+
+    @Mock
+    private LoginAttemptServiceImpl loginAttemptService;
+
+    @Mock
+    private PasswordHasher passwordHasher;
+
+    @InjectMocks
+    private LoginServiceImpl loginService;
+
+    private Enduser testUser;
+    private final String TEST_USERNAME = "testuser";
+    private final String CLIENT_IP = "10.0.0.7";
+
+    @BeforeEach
+    void setUp() {
+        testUser = new Enduser();
+        testUser.setUsername(TEST_USERNAME);
+        testUser.setPassword("$2a$10$hashed");
+        testUser.setName("Test User");
+        testUser.setRole("PEMBELI");
+    }
+
+    // A07:2021 - Identification and Authentication Failures
+    @Test
+    void whenCredentialsValidWithoutAttempts_thenSingleQueryAndNoDelete() {
+        when(enduserDb.findLoginCandidate(TEST_USERNAME)).thenReturn(new LoginCandidate(testUser, null));
+        when(passwordHasher.matches("Test123!@#", "$2a$10$hashed")).thenReturn(true);
+
+        Enduser user = loginService.authenticate(TEST_USERNAME, "Test123!@#", CLIENT_IP);
+
+        assertSame(testUser, user);
+        verify(enduserDb).findLoginCandidate(TEST_USERNAME);
+        verifyNoMoreInteractions(enduserDb);
+        verify(loginAttemptService).loginSuccess(TEST_USERNAME);
+        verify(loginAttemptService, never()).clearLockout(anyString());
+    }
+
+    // A07:2021 - Identification and Authentication Failures
+    @Test
+    void whenCredentialsValidWithPersistedLockout_thenClearIt() {
+        LoginAttempt attempt = new LoginAttempt(TEST_USERNAME, 1, LocalDateTime.now().minusMinutes(1), null);
+        when(enduserDb.findLoginCandidate(TEST_USERNAME)).thenReturn(new LoginCandidate(testUser, attempt));
+        when(loginAttemptService.isLocked(attempt)).thenReturn(false);
+        when(passwordHasher.matches("Test123!@#", "$2a$10$hashed")).thenReturn(true);
+
+        loginService.authenticate(TEST_USERNAME, "Test123!@#", CLIENT_IP);
+
+        verify(loginAttemptService).loginSuccess(TEST_USERNAME);
+        verify(loginAttemptService).clearLockout(TEST_USERNAME);
+    }
+
+    // A02:2021 - Cryptographic Failures
+    @Test
+    void whenStoredCostIsLower_thenRehashWithCompareAndSet() {
+        UUID userId = UUID.randomUUID();
+        testUser.setUserID(userId);
+        when(enduserDb.findLoginCandidate(TEST_USERNAME)).thenReturn(new LoginCandidate(testUser, null));
+        when(passwordHasher.matches("Test123!@#", "$2a$10$hashed")).thenReturn(true);
+        when(passwordHasher.upgradeEncoding("$2a$10$hashed")).thenReturn(true);
+        when(passwordHasher.encode("Test123!@#")).thenReturn("$2a$12$rehashed");
+
+        loginService.authenticate(TEST_USERNAME, "Test123!@#", CLIENT_IP);
+
+        verify(enduserDb).updatePassword(userId, "$2a$10$hashed", "$2a$12$rehashed");
+    }
+
+    // A04:2021 - Insecure Design
+    @Test
+    void whenRehashRejected_thenLoginStillSucceeds() {
+        when(enduserDb.findLoginCandidate(TEST_USERNAME)).thenReturn(new LoginCandidate(testUser, null));
+        when(passwordHasher.matches("Test123!@#", "$2a$10$hashed")).thenReturn(true);
+        when(passwordHasher.upgradeEncoding("$2a$10$hashed")).thenReturn(true);
+        when(passwordHasher.encode("Test123!@#")).thenThrow(new PasswordHashingRejectedException(1));
+
+        assertSame(testUser, loginService.authenticate(TEST_USERNAME, "Test123!@#", CLIENT_IP));
+
+        verify(enduserDb, never()).updatePassword(any(), any(), any());
+        verify(loginAttemptService).loginSuccess(TEST_USERNAME);
+    }
+
+    // A07:2021 - Identification and Authentication Failures
+    @Test
+    void whenPasswordWrong_thenThrowBadCredentials() {
+        when(enduserDb.findLoginCandidate(TEST_USERNAME)).thenReturn(new LoginCandidate(testUser, null));
+        when(passwordHasher.matches("wrong", "$2a$10$hashed")).thenReturn(false);
+
+        assertThrows(BadCredentialsException.class, () -> loginService.authenticate(TEST_USERNAME, "wrong", CLIENT_IP));
+        verify(loginAttemptService, never()).loginSuccess(anyString());
+    }
+
+    // A05:2021 - Security Misconfiguration
+    @Test
+    void whenLockedInMemory_thenRejectWithoutQuery() {
+        when(loginAttemptService.isLocked(TEST_USERNAME)).thenReturn(true);
+        when(loginAttemptService.getLockoutMinutes(TEST_USERNAME)).thenReturn(7L);
+
+        LockedException exception = assertThrows(LockedException.class,
+                () -> loginService.authenticate(TEST_USERNAME, "Test123!@#", CLIENT_IP));
+
+        assertTrue(exception.getMessage().endsWith("setelah 7 menit."));
+        verifyNoInteractions(enduserDb, passwordHasher);
+    }
+
+    // A05:2021 - Security Misconfiguration
+    @Test
+    void whenClientIpLocked_thenRejectWithoutQuery() {
+        when(loginAttemptService.isIpLocked(CLIENT_IP)).thenReturn(true);
+        when(loginAttemptService.getIpLockoutMinutes(CLIENT_IP)).thenReturn(4L);
+
+        LockedException exception = assertThrows(LockedException.class,
+                () -> loginService.authenticate(TEST_USERNAME, "Test123!@#", CLIENT_IP));
+
+        assertEquals("Terlalu banyak percobaan login gagal dari alamat ini. Silakan coba lagi setelah 4 menit.",
+                exception.getMessage());
+        verifyNoInteractions(enduserDb, passwordHasher);
+    }
+
+    // A05:2021 - Security Misconfiguration
+    @Test
+    void whenPersistedLockoutActive_thenThrowLockedWithoutCheckingPassword() {
+        LoginAttempt attempt = new LoginAttempt(TEST_USERNAME, 3, LocalDateTime.now(), LocalDateTime.now().plusMinutes(10));
+        when(enduserDb.findLoginCandidate(TEST_USERNAME)).thenReturn(new LoginCandidate(testUser, attempt));
+        when(loginAttemptService.isLocked(attempt)).thenReturn(true);
+        when(loginAttemptService.getLockoutMinutes(attempt)).thenReturn(9L);
+
+        LockedException exception = assertThrows(LockedException.class,
+                () -> loginService.authenticate(TEST_USERNAME, "Test123!@#", CLIENT_IP));
+
+        assertEquals("Akun terkunci karena 3 kali percobaan login gagal. Silakan coba lagi setelah 9 menit.",
+                exception.getMessage());
+        verifyNoInteractions(passwordHasher);
+    }
+
+    // A07:2021 - Identification and Authentication Failures
+    @Test
+    void whenUserNotFound_thenStillRunPasswordCheck() {
+        when(enduserDb.findLoginCandidate("ghost")).thenReturn(null);
+        when(passwordHasher.encode(anyString())).thenReturn("$2a$10$dummy");
+
+        assertThrows(UsernameNotFoundException.class, () -> loginService.authenticate("ghost", "anything", CLIENT_IP));
+        verify(passwordHasher).matches("anything", "$2a$10$dummy");
+        verify(loginAttemptService, never()).isLocked(any(LoginAttempt.class));
+    }
+}
@@ -12,11 +12,15 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import com.brewforce.auth_service.model.Enduser;
 import com.brewforce.auth_service.repository.EnduserDb;
+import com.brewforce.auth_service.security.PasswordHasher;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(MockitoExtension.class)
 public class UserServiceImplTest {
@@ -24,6 +28,10 @@ public class UserServiceImplTest {
     @Mock
     private EnduserDb enduserDb;
 
+    @Spy
+    private PasswordHasher passwordHasher = new PasswordHasher(new BCryptPasswordEncoder(4),
+            new SimpleMeterRegistry(), 4, 1);
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -2,25 +2,29 @@ package com.brewforce.pkpl.backend.controller;
 
 import java.util.Date;
 
-import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.brewforce.pkpl.backend.dto.response.BaseResponseDTO;
 import com.brewforce.pkpl.backend.model.Menu;
-import com.brewforce.pkpl.backend.security.JwtUtils;
+import com.brewforce.pkpl.backend.security.AuthenticatedUser;
 
 import com.brewforce.pkpl.backend.dto.request.UpdateMenuRequest;
 import com.brewforce.pkpl.backend.dto.request.UpdateStokRequest;
 import com.brewforce.pkpl.backend.dto.response.MenuResponse;
+import com.brewforce.pkpl.backend.service.MenuCatalog;
 import com.brewforce.pkpl.backend.service.MenuService;
 
 import jakarta.validation.Valid;
@@ -32,24 +36,16 @@ public class MenuController {
 
     @Autowired
     private MenuService menuService;
-    @Autowired
-    private JwtUtils jwtUtils;
 
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping("/")
     public ResponseEntity<?> createMenu(@RequestBody Menu menu, BindingResult bindingResult,
-            @RequestHeader(value = "Authorization") String token) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
         try {
-            if (token == null || token.isBlank()) {
+            if (user == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token tidak ditemukan");
             }
 
-            String tokenWithoutBearer = token.startsWith("Bearer ") ? token.substring(7) : token;
-
-            if (!jwtUtils.validateJwtToken(tokenWithoutBearer)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token tidak valid");
-            }
-
             if (bindingResult.hasFieldErrors()) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                         "Request body memiliki kesalahan atau field yang hilang");
@@ -71,22 +67,36 @@ public class MenuController {
     @CrossOrigin("*")
     @GetMapping("/")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<?> getAllMenus(@RequestHeader(value = "Authorization") String token) {
+    public ResponseEntity<?> getAllMenus(@AuthenticationPrincipal AuthenticatedUser user,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
-            if (token != null && !token.isBlank()) {
-                String tokenWithoutBearer = token.startsWith("Bearer ") ? token.substring(7) : token;
-                if (!jwtUtils.validateJwtToken(tokenWithoutBearer)) {
-                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token tidak valid");
-                }
-            } else {
+            if (user == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token tidak ditemukan");
             }
 
-            List<Menu> menus = menuService.getAllMenus();
-            List<MenuResponse> menuResponses = menus.stream()
-                    .map(this::convertToDto)
-                    .toList();
-            return ResponseEntity.ok(menuResponses);
+            // Katalog menu sudah diserialisasi di memori; client yang ETag-nya masih sama cukup dapat 304.
+            // ETag dipilih sesuai encoding yang dinegosiasikan, karena body gzip dan identity berbeda byte
+            MenuCatalog catalog = menuService.getMenuCatalog();
+            boolean gzip = acceptsGzip(acceptEncoding);
+            String etag = gzip ? catalog.getGzipEtag() : catalog.getEtag();
+            if (ifNoneMatch != null && ifNoneMatch.contains(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag)
+                        .cacheControl(CacheControl.noCache())
+                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                        .build();
+            }
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (gzip) {
+                return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(catalog.getGzipJson());
+            }
+            return response.body(catalog.getJson());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error retrieving menus: " + e.getMessage());
@@ -97,14 +107,9 @@ public class MenuController {
     @GetMapping("/{id}")
     @PreAuthorize("permitAll()")
     public ResponseEntity<?> getMenuById(@PathVariable("id") UUID id,
-            @RequestHeader(value = "Authorization") String token) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
         try {
-            if (token != null && !token.isBlank()) {
-                String tokenWithoutBearer = token.startsWith("Bearer ") ? token.substring(7) : token;
-                if (!jwtUtils.validateJwtToken(tokenWithoutBearer)) {
-                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token tidak valid");
-                }
-            } else {
+            if (user == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token tidak ditemukan");
             }
 
@@ -120,6 +125,19 @@ public class MenuController {
         }
     }
 
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String encoding : acceptEncoding.split(",")) {
+            String[] parts = encoding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").equals("q=0");
+            }
+        }
+        return false;
+    }
+
     private MenuResponse convertToDto(Menu menu) {
         return MenuResponse.builder()
                 .idMenu(menu.getIdMenu())
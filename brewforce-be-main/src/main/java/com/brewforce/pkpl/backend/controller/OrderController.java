@@ -1,5 +1,7 @@
 package com.brewforce.pkpl.backend.controller;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -8,62 +10,93 @@ import java.util.NoSuchElementException;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.brewforce.pkpl.backend.dto.request.OrderCursor;
+import com.brewforce.pkpl.backend.dto.request.OrderExportFormat;
 import com.brewforce.pkpl.backend.dto.response.BaseResponseDTO;
+import com.brewforce.pkpl.backend.dto.response.OrderChangesResponse;
 import com.brewforce.pkpl.backend.dto.response.OrderItemResponse;
 import com.brewforce.pkpl.backend.dto.response.OrderResponse;
+import com.brewforce.pkpl.backend.dto.response.OrderStatusResponse;
 import com.brewforce.pkpl.backend.model.Order;
 import com.brewforce.pkpl.backend.model.OrderMenu;
-import com.brewforce.pkpl.backend.security.JwtUtils;
+import com.brewforce.pkpl.backend.security.AuthenticatedUser;
+import com.brewforce.pkpl.backend.service.OrderEventService;
+import com.brewforce.pkpl.backend.service.OrderExportService;
+import com.brewforce.pkpl.backend.service.OrderIdempotencyService;
 import com.brewforce.pkpl.backend.service.OrderService;
+import com.brewforce.pkpl.backend.service.OrderStatusWaitService;
 
 @Controller
 @RequestMapping("api/orders")
 public class OrderController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 100;
 
     @Autowired
     private OrderService orderService;
     @Autowired
-    private JwtUtils jwtUtils;
+    private OrderExportService orderExportService;
+    @Autowired
+    private OrderEventService orderEventService;
+    @Autowired
+    private OrderStatusWaitService orderStatusWaitService;
+    @Autowired
+    private OrderIdempotencyService orderIdempotencyService;
 
     @CrossOrigin("*")
     @PreAuthorize("hasRole('PEMBELI') or hasRole('KASIR')")
     @GetMapping("/{id}")
     public ResponseEntity<?> getOrderById(
             @PathVariable("id") UUID id,
-            @RequestHeader(value = "Authorization", required = false) String token) {
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            if (token == null || token.isBlank()) {
+            if (user == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token tidak valid");
             }
 
-            String tokenWithoutBearer = token.startsWith("Bearer ") ? token.substring(7) : token;
+            // Client yang mengirim ETag dicek dulu lewat proyeksi status; jika revisinya sama,
+            // item order tidak perlu dimuat sama sekali
+            if (ifNoneMatch != null) {
+                OrderStatusResponse orderStatus = orderService.getOrderStatus(id);
+                if (orderStatus == null) {
+                    throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Order dengan ID " + id + " tidak ditemukan");
+                }
+                checkOrderAccess(user, orderStatus.getUsername());
 
-            if (!jwtUtils.validateJwtToken(tokenWithoutBearer)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token tidak valid");
+                String etag = revisionEtag(orderStatus.getRevision());
+                if (etag != null && ifNoneMatch.contains(etag)) {
+                    return notModified(etag);
+                }
             }
 
-            String role = jwtUtils.getRoleFromJwtToken(tokenWithoutBearer);
-
             Order order = orderService.getOrderById(id);
             if (order == null) {
                 throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Order dengan ID " + id + " tidak ditemukan");
             }
+            checkOrderAccess(user, order.getUsername());
 
-            if (role.equals("PEMBELI")) {
-                String username = jwtUtils.getUsernameJwtToken(tokenWithoutBearer);
-                if (!order.getUsername().equals(username)) {
-                    throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Anda tidak memiliki akses ke pesanan ini");
-                }
-            }
-
-            return ResponseEntity.ok(convertToDto(order));
+            return withRevisionEtag(ResponseEntity.ok(), order.getRevision()).body(convertToDto(order));
 
         } catch (ResponseStatusException e) {
             if (e.getStatusCode() == HttpStatus.BAD_REQUEST) {
@@ -79,20 +112,126 @@ public class OrderController {
         }
     }
 
+    /**
+     * Resource kecil khusus status untuk polling halaman detail pembeli. Hanya membaca satu
+     * baris orders dan mendukung If-None-Match, jadi status yang belum berubah cukup dibalas 304.
+     */
     @CrossOrigin("*")
+    @PreAuthorize("hasRole('PEMBELI') or hasRole('KASIR')")
+    @GetMapping("/{id}/status")
+    public ResponseEntity<?> getOrderStatus(
+            @PathVariable("id") UUID id,
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            if (user == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token tidak valid");
+            }
+
+            OrderStatusResponse orderStatus = orderService.getOrderStatus(id);
+            if (orderStatus == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Order dengan ID " + id + " tidak ditemukan");
+            }
+            checkOrderAccess(user, orderStatus.getUsername());
+
+            String etag = revisionEtag(orderStatus.getRevision());
+            if (etag != null && ifNoneMatch != null && ifNoneMatch.contains(etag)) {
+                return notModified(etag);
+            }
+            return withRevisionEtag(ResponseEntity.ok(), orderStatus.getRevision()).body(orderStatus);
+
+        } catch (ResponseStatusException e) {
+            if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getReason());
+            } else if (e.getStatusCode() == HttpStatus.FORBIDDEN) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getReason());
+            } else {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("An unexpected error occurred: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Long-poll: respons ditahan sampai revisi order berbeda dari since atau 30 detik berlalu.
+     * Jika revisi sudah berbeda saat request datang, status terbaru langsung dikembalikan.
+     */
+    @CrossOrigin("*")
+    @PreAuthorize("hasRole('PEMBELI') or hasRole('KASIR')")
+    @GetMapping("/{id}/status/wait")
+    public DeferredResult<OrderStatusResponse> waitForOrderStatus(
+            @PathVariable("id") UUID id,
+            @RequestParam(value = "since", required = false) Long since,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        if (user == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token tidak valid");
+        }
+
+        OrderStatusResponse orderStatus = orderService.getOrderStatus(id);
+        if (orderStatus == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Order dengan ID " + id + " tidak ditemukan");
+        }
+        checkOrderAccess(user, orderStatus.getUsername());
+
+        if (since != null && !since.equals(orderStatus.getRevision())) {
+            DeferredResult<OrderStatusResponse> result = new DeferredResult<>();
+            result.setResult(orderStatus);
+            return result;
+        }
+        return orderStatusWaitService.waitForChange(orderStatus);
+    }
+
+    private void checkOrderAccess(AuthenticatedUser user, String orderUsername) {
+        if (user.hasRole("PEMBELI") && !orderUsername.equals(user.getUsername())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Anda tidak memiliki akses ke pesanan ini");
+        }
+    }
+
+    // Revisi order naik setiap kali order berubah, jadi langsung bisa dipakai sebagai ETag
+    private String revisionEtag(Long revision) {
+        return revision != null ? "\"" + revision + "\"" : null;
+    }
+
+    private ResponseEntity.BodyBuilder withRevisionEtag(ResponseEntity.BodyBuilder builder, Long revision) {
+        builder.cacheControl(CacheControl.noCache().cachePrivate());
+        String etag = revisionEtag(revision);
+        if (etag != null) {
+            builder.eTag(etag);
+        }
+        return builder;
+    }
+
+    private ResponseEntity<?> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .build();
+    }
+
+    /**
+     * Client boleh mengirim header Idempotency-Key. Retry dengan key yang sama dari user yang sama
+     * mengembalikan order hasil request pertama tanpa membuat order dan mengurangi stok lagi.
+     */
+    @CrossOrigin(origins = "*", exposedHeaders = IDEMPOTENT_REPLAYED_HEADER)
     @PreAuthorize("hasRole('PEMBELI')")
     @PostMapping("/")
     public ResponseEntity<?> createOrder(@RequestBody Map<String, Object> payload,
-            @RequestHeader(value = "Authorization") String token) {
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         try {
-            if (token == null || token.isBlank()) {
+            if (user == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token tidak valid");
             }
 
-            String tokenWithoutBearer = token.startsWith("Bearer ") ? token.substring(7) : token;
-
-            if (!jwtUtils.validateJwtToken(tokenWithoutBearer)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token tidak valid");
+            if (idempotencyKey != null) {
+                if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Idempotency-Key harus berisi 1-" + MAX_IDEMPOTENCY_KEY_LENGTH + " karakter");
+                }
+                ResponseEntity<?> replayed = replayCreatedOrder(user.getUsername(), idempotencyKey);
+                if (replayed != null) {
+                    return replayed;
+                }
             }
 
             if (payload == null || !payload.containsKey("menuItems")) {
@@ -133,8 +272,19 @@ public class OrderController {
                 quantities.add(quantity);
             }
 
-            String username = jwtUtils.getUsernameJwtToken(tokenWithoutBearer);
-            Order newOrder = orderService.createOrder(menuIds, quantities, username);
+            Order newOrder;
+            try {
+                newOrder = orderService.createOrder(menuIds, quantities, user.getUsername(), idempotencyKey);
+            } catch (DataIntegrityViolationException e) {
+                // Retry lain dengan key yang sama commit lebih dulu; transaksi ini sudah di-rollback
+                ResponseEntity<?> replayed = idempotencyKey != null
+                        ? replayCreatedOrder(user.getUsername(), idempotencyKey)
+                        : null;
+                if (replayed == null) {
+                    throw e;
+                }
+                return replayed;
+            }
 
             // Convert to DTO
             OrderResponse response = convertToDto(newOrder);
@@ -156,16 +306,32 @@ public class OrderController {
         }
     }
 
+    private ResponseEntity<?> replayCreatedOrder(String username, String idempotencyKey) {
+        UUID idOrder = orderIdempotencyService.findOrderId(username, idempotencyKey);
+        if (idOrder == null) {
+            return null;
+        }
+        Order order = orderService.getOrderById(idOrder);
+        if (order == null) {
+            return null;
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(IDEMPOTENT_REPLAYED_HEADER, "true")
+                .body(convertToDto(order));
+    }
+
     private OrderResponse convertToDto(Order order) {
         List<OrderItemResponse> items = new ArrayList<>();
 
         for (OrderMenu orderMenuItem : order.getOrderMenuItems()) {
+            // Nama dan harga dibaca dari salinan di order_menu (baris lama sudah di-backfill di
+            // schema.sql); menu yang LAZY hanya dipakai untuk id-nya, tanpa query tambahan
             OrderItemResponse itemResponse = OrderItemResponse.builder()
                     .id(orderMenuItem.getId())
                     .menuId(orderMenuItem.getMenu().getIdMenu())
-                    .menuName(orderMenuItem.getMenu().getNamaMenu())
+                    .menuName(orderMenuItem.getNamaMenu())
                     .quantity(orderMenuItem.getQuantity())
-                    .price(orderMenuItem.getMenu().getHargaMenu())
+                    .price(orderMenuItem.getHargaSatuan())
                     .build();
 
             items.add(itemResponse);
@@ -177,6 +343,7 @@ public class OrderController {
                 .totalHarga(order.getTotalHarga())
                 .username(order.getUsername())
                 .createdDateTime(order.getCreatedAt())
+                .revision(order.getRevision())
                 .items(items)
                 .build();
     }
@@ -185,16 +352,10 @@ public class OrderController {
     @PreAuthorize("hasRole('KASIR')")
     @PutMapping("/{id}/status")
     public ResponseEntity<?> updateStatusOrder(@RequestBody Order updateOrder,
-            @RequestHeader(value = "Authorization") String token) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
         var baseResponseDTO = new BaseResponseDTO<Order>();
         try {
-            if (token == null || token.isBlank()) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token tidak valid");
-            }
-
-            String tokenWithoutBearer = token.startsWith("Bearer ") ? token.substring(7) : token;
-
-            if (!jwtUtils.validateJwtToken(tokenWithoutBearer)) {
+            if (user == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token tidak valid");
             }
 
@@ -226,51 +387,41 @@ public class OrderController {
         }
     }
 
-    @CrossOrigin("*")
+    @CrossOrigin(origins = "*", exposedHeaders = NEXT_CURSOR_HEADER)
     @GetMapping("/my-orders")
     @PreAuthorize("hasRole('PEMBELI')")
-    public ResponseEntity<?> getOrdersByUsername(@RequestHeader(value = "Authorization") String token) {
-        if (token == null || token.isBlank()) {
+    public ResponseEntity<?> getOrdersByUsername(@AuthenticationPrincipal AuthenticatedUser user,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
+        if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token tidak ditemukan");
         }
 
-        String tokenWithoutBearer = token.startsWith("Bearer ") ? token.substring(7) : token;
-
-        if (!jwtUtils.validateJwtToken(tokenWithoutBearer)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token tidak valid");
+        OrderCursor after;
+        try {
+            after = OrderCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Cursor tidak valid");
         }
 
-        String username = jwtUtils.getUsernameJwtToken(tokenWithoutBearer);
-
         // Get orders for the authenticated user
-        List<Order> orders = orderService.getOrdersByUsername(username);
-        List<OrderResponse> orderResponses = orders.stream()
-                .map(this::convertToDto)
-                .toList();
-        return ResponseEntity.ok(orderResponses);
+        int pageSize = resolvePageSize(size);
+        List<Order> orders = orderService.getOrdersPageByUsername(user.getUsername(), after, pageSize + 1);
+        return toPageResponse(orders, pageSize);
     }
 
-    @CrossOrigin("*")
+    @CrossOrigin(origins = "*", exposedHeaders = NEXT_CURSOR_HEADER)
     @PreAuthorize("hasRole('KASIR')")
     @GetMapping("")
     public ResponseEntity<?> getAllOrders(
-            @RequestParam(value = "statuses", required = false) List<String> statuses) {
+            @RequestParam(value = "statuses", required = false) List<String> statuses,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
         var baseResponseDTO = new BaseResponseDTO<Order>();
         try {
-
-            List<Order> orders;
-
-            if (statuses != null && !statuses.isEmpty()) {
-                orders = orderService.getOrdersByStatuses(statuses);
-            } else {
-                orders = orderService.getAllOrders();
-            }
-
-            List<OrderResponse> orderResponses = orders.stream()
-                    .map(this::convertToDto)
-                    .toList();
-
-            return ResponseEntity.ok(orderResponses);
+            int pageSize = resolvePageSize(size);
+            List<Order> orders = orderService.getOrdersPage(statuses, OrderCursor.decode(cursor), pageSize + 1);
+            return toPageResponse(orders, pageSize);
 
         } catch (Exception e) {
             baseResponseDTO.setStatus(HttpStatus.BAD_REQUEST.value());
@@ -281,27 +432,128 @@ public class OrderController {
         }
     }
 
+    /**
+     * Sinkronisasi delta: hanya order yang berubah setelah revisi since, diurutkan menurut revisi.
+     * Jika hasMore bernilai true, panggil lagi dengan since = revision dari respons ini.
+     * Perubahan dari transaksi yang belum selesai baru muncul setelah transaksi itu commit.
+     */
+    @CrossOrigin("*")
+    @PreAuthorize("hasRole('KASIR')")
+    @GetMapping("/changes")
+    public ResponseEntity<?> getOrderChanges(
+            @RequestParam(value = "since", defaultValue = "0") long since,
+            @RequestParam(value = "size", required = false) Integer size) {
+        if (since < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Parameter since tidak boleh negatif");
+        }
+
+        int pageSize = resolvePageSize(size);
+        List<Order> orders = orderService.getOrdersChangedSince(since, pageSize + 1);
+        boolean hasMore = orders.size() > pageSize;
+        List<Order> page = hasMore ? cutAtRevisionBoundary(orders, pageSize) : orders;
+
+        long highWaterMark = page.isEmpty() ? since : page.get(page.size() - 1).getRevision();
+        OrderChangesResponse response = OrderChangesResponse.builder()
+                .orders(page.stream().map(this::convertToDto).toList())
+                .revision(highWaterMark)
+                .hasMore(hasMore)
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
+    // Order dengan revisi yang sama ditulis oleh satu transaksi dan tidak boleh terbelah di antara
+    // dua halaman, karena halaman berikutnya dimulai dari revisi > high-water mark. Halaman boleh
+    // melebihi pageSize untuk menghabiskan revisi terakhirnya (service sudah memuatnya lengkap)
+    private List<Order> cutAtRevisionBoundary(List<Order> orders, int pageSize) {
+        long lastRevision = orders.get(pageSize - 1).getRevision();
+        int end = pageSize;
+        while (end < orders.size() && orders.get(end).getRevision() == lastRevision) {
+            end++;
+        }
+        return orders.subList(0, end);
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Service diminta memuat satu order lebih banyak dari ukuran halaman; jika ada,
+     * berarti masih ada halaman berikutnya dan cursor-nya dikirim lewat header.
+     */
+    private ResponseEntity<List<OrderResponse>> toPageResponse(List<Order> orders, int pageSize) {
+        HttpHeaders headers = new HttpHeaders();
+        List<Order> page = orders;
+        if (orders.size() > pageSize) {
+            page = orders.subList(0, pageSize);
+            headers.set(NEXT_CURSOR_HEADER, OrderCursor.after(page.get(pageSize - 1)).encode());
+        }
+
+        List<OrderResponse> orderResponses = page.stream()
+                .map(this::convertToDto)
+                .toList();
+        return ResponseEntity.ok().headers(headers).body(orderResponses);
+    }
+
+    @CrossOrigin("*")
+    @PreAuthorize("hasRole('KASIR') or hasRole('ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        OrderExportFormat exportFormat;
+        try {
+            exportFormat = OrderExportFormat.fromParam(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        // Tanggal from dan to inklusif; tanpa batas berarti seluruh order
+        LocalDateTime fromTime = from != null ? from.atStartOfDay() : LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime toTime = to != null ? to.plusDays(1).atStartOfDay() : LocalDateTime.of(9999, 12, 31, 0, 0);
+        if (!fromTime.isBefore(toTime)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tanggal 'from' harus sebelum 'to'");
+        }
+
+        StreamingResponseBody body = out -> orderExportService.exportOrders(fromTime, toTime, exportFormat, out);
+        String filename = "orders-" + (from != null ? from : "all") + (to != null ? "-" + to : "")
+                + "." + exportFormat.getExtension();
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+    /**
+     * Feed SSE untuk dashboard kasir: event ORDER_CREATED dan ORDER_STATUS_CHANGED.
+     * Browser mengirim header Last-Event-ID saat reconnect sehingga event yang terlewat dikirim ulang.
+     */
+    @CrossOrigin("*")
+    @PreAuthorize("hasRole('KASIR')")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrderEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return orderEventService.subscribe(lastEventId);
+    }
+
     @CrossOrigin("*")
     @PutMapping("/cancel")
     @PreAuthorize("hasRole('PEMBELI')")
     public ResponseEntity<?> cancelOrder(
             @RequestBody Order updateOrder,
-            @RequestHeader(value = "Authorization") String token) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
         var baseResponseDTO = new BaseResponseDTO<Order>();
         try {
-            // Validasi token
-            if (token == null || token.isBlank()) {
+            if (user == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token tidak ditemukan");
             }
 
-            String tokenWithoutBearer = token.startsWith("Bearer ") ? token.substring(7) : token;
-
-            if (!jwtUtils.validateJwtToken(tokenWithoutBearer)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token tidak valid");
-            }
-
             // Validasi username: harus pemilik pesanan
-            String username = jwtUtils.getUsernameJwtToken(tokenWithoutBearer);
             Order order = orderService.getOrderById(updateOrder.getIdOrder());
 
             if (order == null) {
@@ -309,7 +561,7 @@ public class OrderController {
                         .body("Pesanan dengan ID " + updateOrder.getIdOrder() + " tidak ditemukan");
             }
 
-            if (!order.getUsername().equals(username)) {
+            if (!order.getUsername().equals(user.getUsername())) {
                 baseResponseDTO.setStatus(HttpStatus.FORBIDDEN.value());
                 baseResponseDTO.setMessage("Anda hanya dapat membatalkan pesanan milik Anda sendiri");
                 baseResponseDTO.setData(null);
@@ -0,0 +1,56 @@
+package com.brewforce.pkpl.backend.dto.request;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+import com.brewforce.pkpl.backend.model.Order;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Posisi keyset untuk pagination order, diurutkan dari createdAt dan idOrder terbaru.
+ * Dikirim ke client sebagai string opaque lewat header X-Next-Cursor.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderCursor {
+    // Posisi awal: lebih baru dari semua order yang mungkin ada
+    public static final OrderCursor FIRST = new OrderCursor(
+            LocalDateTime.of(9999, 12, 31, 23, 59, 59), new UUID(-1L, -1L));
+
+    private static final String SEPARATOR = "|";
+
+    private LocalDateTime createdAt;
+    private UUID idOrder;
+
+    public static OrderCursor after(Order order) {
+        return new OrderCursor(order.getCreatedAt(), order.getIdOrder());
+    }
+
+    public String encode() {
+        String raw = createdAt + SEPARATOR + idOrder;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static OrderCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = raw.indexOf(SEPARATOR);
+            if (separatorIndex < 0) {
+                throw new IllegalArgumentException("Cursor tidak valid");
+            }
+            return new OrderCursor(
+                    LocalDateTime.parse(raw.substring(0, separatorIndex)),
+                    UUID.fromString(raw.substring(separatorIndex + 1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor tidak valid", e);
+        }
+    }
+}
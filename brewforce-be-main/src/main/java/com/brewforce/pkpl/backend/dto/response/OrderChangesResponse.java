@@ -0,0 +1,19 @@
+package com.brewforce.pkpl.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OrderChangesResponse {
+    private List<OrderResponse> orders;
+    // High-water mark: kirim kembali sebagai parameter since pada permintaan berikutnya
+    private long revision;
+    private boolean hasMore;
+}
@@ -0,0 +1,22 @@
+package com.brewforce.pkpl.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OrderEventResponse {
+    private String type;
+    private UUID idOrder;
+    private String username;
+    private String status;
+    private Long revision;
+    private LocalDateTime occurredAt;
+}
@@ -20,4 +20,5 @@ public class OrderResponse {
     private String username;
     private List<OrderItemResponse> items;
     private LocalDateTime createdDateTime;
+    private Long revision;
 }
\ No newline at end of file
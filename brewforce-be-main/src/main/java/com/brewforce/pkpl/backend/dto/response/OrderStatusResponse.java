@@ -0,0 +1,19 @@
+package com.brewforce.pkpl.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OrderStatusResponse {
+    private UUID idOrder;
+    private String username;
+    private String status;
+    private Long revision;
+}
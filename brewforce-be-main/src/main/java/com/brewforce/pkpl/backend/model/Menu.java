@@ -15,7 +15,7 @@ import java.util.UUID;
 @Table(name = "menu")
 public class Menu {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     @Column(name = "id_menu")
     private UUID idMenu;
 
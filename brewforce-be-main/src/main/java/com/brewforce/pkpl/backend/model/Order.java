@@ -14,10 +14,15 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 @Getter
 @Setter
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_created_at_id", columnList = "created_at, id_order"),
+    @Index(name = "idx_orders_username_created_at_id", columnList = "username, created_at, id_order"),
+    @Index(name = "idx_orders_revision", columnList = "revision"),
+    @Index(name = "idx_orders_status_created_at_id", columnList = "status, created_at, id_order")
+})
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     @Column(name = "id_order")
     private UUID idOrder;
 
@@ -42,6 +47,11 @@ public class Order {
     @Column(name = "created_at", updatable = false, nullable = false)
     private LocalDateTime createdAt;
 
+    // Id transaksi Postgres yang terakhir membuat atau mengubah status order ini; naik setiap
+    // kali order berubah, dipakai client untuk sinkronisasi delta (GET /api/orders/changes?since=R)
+    @Column(name = "revision")
+    private Long revision;
+
     // Method to add menu item to order
     public void addMenuItem(Menu menu, int quantity) {
         if (menu.isDeleted()) {
@@ -55,6 +65,8 @@ public class Order {
         orderMenuItem.setOrder(this);
         orderMenuItem.setMenu(menu);
         orderMenuItem.setQuantity(quantity);
+        orderMenuItem.setNamaMenu(menu.getNamaMenu());
+        orderMenuItem.setHargaSatuan(menu.getHargaMenu());
         
         orderMenuItems.add(orderMenuItem);
         totalHarga += menu.getHargaMenu() * quantity;
@@ -62,6 +74,6 @@ public class Order {
             throw new IllegalArgumentException("Stok menu " + menu.getNamaMenu() + 
                     " tidak mencukupi. Tersedia: " + menu.getStok() + ", Diminta: " + quantity);
         }
-        menu.setStok(menu.getStok() - quantity);
+        // Stok dikurangi secara atomik oleh MenuRepository.decrementStok, bukan di sini
     }
 }
@@ -0,0 +1,37 @@
+package com.brewforce.pkpl.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Hasil pertama POST /api/orders/ untuk pasangan (username, Idempotency-Key); retry dari
+// client mengembalikan order yang sama tanpa membuat order dan mengurangi stok lagi
+@Getter
+@Setter
+@Entity
+@Table(name = "order_idempotency_keys", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_order_idempotency_username_key", columnNames = { "username", "idempotency_key" })
+}, indexes = {
+    @Index(name = "idx_order_idempotency_created_at", columnList = "created_at")
+})
+public class OrderIdempotencyKey {
+    @Id
+    @UuidV7
+    private UUID id;
+
+    @Column(name = "username", nullable = false)
+    private String username;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    @Column(name = "id_order", nullable = false)
+    private UUID idOrder;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false, nullable = false)
+    private LocalDateTime createdAt;
+}
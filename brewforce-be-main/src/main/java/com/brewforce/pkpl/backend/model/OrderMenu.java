@@ -4,17 +4,19 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.util.Objects;
 import java.util.UUID;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 
 @Getter
 @Setter
 @Entity
-@Table(name = "order_menu")
+// Item selalu dibaca per order (detail order, halaman order, pengembalian stok)
+@Table(name = "order_menu", indexes = {
+    @Index(name = "idx_order_menu_order_id", columnList = "order_id")
+})
 public class OrderMenu {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @ManyToOne
@@ -22,10 +24,18 @@ public class OrderMenu {
     @JsonBackReference
     private Order order;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "menu_id", nullable = false)
     private Menu menu;
 
     @Column(nullable = false)
     private int quantity;
+
+    // Salinan nama dan harga menu saat order dibuat, supaya riwayat order
+    // tidak perlu join ke tabel menu dan tidak berubah saat harga diubah
+    @Column(name = "nama_menu")
+    private String namaMenu;
+
+    @Column(name = "harga_satuan")
+    private Integer hargaSatuan;
 }
\ No newline at end of file
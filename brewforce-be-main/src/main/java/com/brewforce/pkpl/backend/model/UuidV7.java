@@ -0,0 +1,20 @@
+package com.brewforce.pkpl.backend.model;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+/**
+ * Primary key UUID versi 7 (RFC 9562): 48 bit pertama adalah waktu dalam milidetik, jadi id baru
+ * selalu masuk di ujung kanan B-tree, bukan tersebar acak seperti UUID v4.
+ */
+@IdGeneratorType(UuidV7Generator.class)
+@Retention(RUNTIME)
+@Target({ FIELD, METHOD })
+public @interface UuidV7 {
+}
@@ -0,0 +1,54 @@
+package com.brewforce.pkpl.backend.model;
+
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+public class UuidV7Generator implements BeforeExecutionGenerator {
+    private static final int MAX_SEQUENCE = 0xFFF;
+
+    private static long lastTimestamp = -1L;
+    private static int sequence;
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+            EventType eventType) {
+        return nextUuid();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+
+    /**
+     * 12 bit rand_a dipakai sebagai counter di dalam milidetik yang sama (RFC 9562 metode 1),
+     * sehingga id dari satu instance tetap urut walau banyak insert terjadi dalam 1 ms.
+     */
+    public static UUID nextUuid() {
+        long timestamp;
+        int seq;
+        synchronized (UuidV7Generator.class) {
+            long now = System.currentTimeMillis();
+            if (now > lastTimestamp) {
+                lastTimestamp = now;
+                sequence = ThreadLocalRandom.current().nextInt(MAX_SEQUENCE / 2);
+            } else if (++sequence > MAX_SEQUENCE) {
+                // Counter habis atau jam mundur: pinjam milidetik berikutnya agar tetap monoton
+                lastTimestamp++;
+                sequence = 0;
+            }
+            timestamp = lastTimestamp;
+            seq = sequence;
+        }
+
+        long mostSigBits = (timestamp << 16) | 0x7000L | seq;
+        long leastSigBits = (ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
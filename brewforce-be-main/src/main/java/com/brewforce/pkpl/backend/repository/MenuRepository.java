@@ -2,12 +2,48 @@ package com.brewforce.pkpl.backend.repository;
 
 import com.brewforce.pkpl.backend.model.Menu;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface MenuRepository extends JpaRepository<Menu, UUID> {
     Optional<Menu> findById(UUID id);
+
+    // Menu yang sudah di-soft-delete disaring di database, didukung partial index
+    // idx_menu_active (lihat schema.sql) yang hanya memuat baris dengan is_deleted = false
+    @Query("select m from Menu m where m.isDeleted = false order by m.namaMenu, m.idMenu")
+    List<Menu> findAllActive();
+
+    @Query("select m from Menu m where m.idMenu = :id and m.isDeleted = false")
+    Optional<Menu> findActiveById(@Param("id") UUID id);
+
+    List<Menu> findByIdMenuInOrderByIdMenu(Collection<UUID> ids);
+
+    // Mengurangi stok hanya jika stok masih cukup; mengembalikan 0 jika gagal
+    @Modifying
+    @Query("update Menu m set m.stok = m.stok - :quantity " +
+            "where m.idMenu = :id and m.stok >= :quantity and m.isDeleted = false")
+    int decrementStok(@Param("id") UUID id, @Param("quantity") int quantity);
+
+    // Mengembalikan stok seluruh item dari order-order yang dibatalkan dalam satu statement.
+    // Baris menu yang sama dijumlahkan dulu, lalu dikunci berurutan id seperti decrementStok
+    // agar tidak deadlock dengan pembuatan order yang berjalan bersamaan
+    @Modifying
+    @Query(value = "with totals as (" +
+            "select om.menu_id, sum(om.quantity) as quantity from order_menu om " +
+            "where om.order_id in (:orderIds) group by om.menu_id), " +
+            "locked as (" +
+            "select m.id_menu from menu m join totals t on t.menu_id = m.id_menu " +
+            "order by m.id_menu for update of m) " +
+            "update menu m set stok = m.stok + t.quantity " +
+            "from totals t join locked l on l.id_menu = t.menu_id " +
+            "where m.id_menu = t.menu_id", nativeQuery = true)
+    int restoreStokForOrders(@Param("orderIds") Collection<UUID> orderIds);
 }
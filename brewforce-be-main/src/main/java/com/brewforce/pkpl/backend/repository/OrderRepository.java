@@ -1,15 +1,114 @@
 package com.brewforce.pkpl.backend.repository;
 
 
+import com.brewforce.pkpl.backend.dto.response.OrderStatusResponse;
 import com.brewforce.pkpl.backend.model.Order;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, UUID> {
-    List<Order> findByUsername(String username);
-    List<Order> findByStatusIn(List<String> statuses);
-}
\ No newline at end of file
+    Optional<Order> findFirstByUsernameAndStatusNotIn(String username, List<String> statuses);
+
+    // Keyset pagination: halaman berikutnya dimulai tepat setelah (createdAt, idOrder)
+    // order terakhir, jadi halaman ke-N sama murahnya dengan halaman pertama (tanpa OFFSET).
+    // Perbandingan row-value (bukan bentuk OR) yang bisa dipakai Postgres sebagai batas
+    // range index (..., created_at, id_order); bentuk OR hanya menjadi filter setelah scan
+    @Query("select o.idOrder from Order o " +
+            "where (o.createdAt, o.idOrder) < (:createdAt, :idOrder) " +
+            "order by o.createdAt desc, o.idOrder desc")
+    List<UUID> findPageIds(@Param("createdAt") LocalDateTime createdAt,
+            @Param("idOrder") UUID idOrder, Pageable pageable);
+
+    @Query("select o.idOrder from Order o " +
+            "where o.status in :statuses " +
+            "and (o.createdAt, o.idOrder) < (:createdAt, :idOrder) " +
+            "order by o.createdAt desc, o.idOrder desc")
+    List<UUID> findPageIdsByStatusIn(@Param("statuses") List<String> statuses,
+            @Param("createdAt") LocalDateTime createdAt, @Param("idOrder") UUID idOrder, Pageable pageable);
+
+    @Query("select o.idOrder from Order o " +
+            "where o.username = :username " +
+            "and (o.createdAt, o.idOrder) < (:createdAt, :idOrder) " +
+            "order by o.createdAt desc, o.idOrder desc")
+    List<UUID> findPageIdsByUsername(@Param("username") String username,
+            @Param("createdAt") LocalDateTime createdAt, @Param("idOrder") UUID idOrder, Pageable pageable);
+
+    // Memuat satu halaman order beserta item-nya; dipisah dari query id agar LIMIT
+    // tidak diterapkan di memori karena join fetch ke koleksi
+    @Query("select o from Order o " +
+            "left join fetch o.orderMenuItems " +
+            "where o.idOrder in :ids " +
+            "order by o.createdAt desc, o.idOrder desc")
+    List<Order> findAllWithItemsByIdOrderIn(@Param("ids") Collection<UUID> ids);
+
+    // Revisi order adalah id transaksi (xid8) yang terakhir menulisnya. Id transaksi dibagikan
+    // Postgres tanpa antrean, jadi penulis order tidak saling menunggu; semua order yang ditulis
+    // satu transaksi mendapat revisi yang sama
+    @Query(value = "select pg_current_xact_id()::text::bigint", nativeQuery = true)
+    Long nextRevision();
+
+    // Hanya revisi di bawah xmin snapshot yang dikembalikan: semua transaksi dengan id di bawah
+    // batas itu sudah selesai, jadi tidak ada revisi lebih kecil yang baru muncul setelah client
+    // menyimpan high-water mark. Perubahan dari transaksi yang masih berjalan (atau transaksi lain
+    // yang lebih tua darinya) tertahan sampai transaksi tersebut selesai
+    @Query(value = "select id_order from orders " +
+            "where revision > :since " +
+            "and revision < pg_snapshot_xmin(pg_current_snapshot())::text::bigint " +
+            "order by revision, id_order " +
+            "limit :limit", nativeQuery = true)
+    List<UUID> findIdsChangedSince(@Param("since") long since, @Param("limit") int limit);
+
+    // Melengkapi revisi terakhir sebuah halaman delta agar satu transaksi tidak terpotong
+    // di antara dua halaman
+    @Query("select o.idOrder from Order o " +
+            "where o.revision = (select last.revision from Order last where last.idOrder = :id)")
+    List<UUID> findIdsWithSameRevisionAs(@Param("id") UUID id);
+
+    // Proyeksi ringan untuk polling status dan cek ETag: hanya satu baris orders, tanpa item
+    @Query("select new com.brewforce.pkpl.backend.dto.response.OrderStatusResponse(" +
+            "o.idOrder, o.username, o.status, o.revision) " +
+            "from Order o where o.idOrder = :id")
+    Optional<OrderStatusResponse> findStatusById(@Param("id") UUID id);
+
+    // Mengunci baris order sebelum status diubah, supaya pembatalan oleh user/kasir dan
+    // sweeper order kedaluwarsa tidak sama-sama mengembalikan stok untuk order yang sama
+    @Query(value = "select id_order from orders where id_order = :id for update", nativeQuery = true)
+    Optional<UUID> lockById(@Param("id") UUID id);
+
+    // Mengklaim order AWAITING_PAYMENT yang melewati batas waktu bayar, memakai index
+    // (status, created_at). SKIP LOCKED membuat beberapa replika bisa menyapu bersamaan
+    // tanpa saling menunggu dan tanpa mengambil order yang sama
+    @Query(value = "select id_order from orders " +
+            "where status = 'AWAITING_PAYMENT' and created_at < :cutoff " +
+            "order by created_at " +
+            "limit :limit for update skip locked", nativeQuery = true)
+    List<UUID> lockExpiredAwaitingPayment(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    // Membatalkan sekumpulan order sekaligus; revisinya id transaksi sweeper, sama seperti nextRevision
+    @Modifying
+    @Query(value = "update orders set status = 'CANCELLED', revision = pg_current_xact_id()::text::bigint " +
+            "where id_order in (:ids)", nativeQuery = true)
+    int cancelWithNewRevision(@Param("ids") Collection<UUID> ids);
+
+    @Query("select new com.brewforce.pkpl.backend.dto.response.OrderStatusResponse(" +
+            "o.idOrder, o.username, o.status, o.revision) " +
+            "from Order o where o.idOrder in :ids")
+    List<OrderStatusResponse> findStatusesByIdOrderIn(@Param("ids") Collection<UUID> ids);
+
+    // Lookup by primary key yang sekaligus memuat item-nya dalam satu query
+    @Query("select o from Order o " +
+            "left join fetch o.orderMenuItems " +
+            "where o.idOrder = :id")
+    Optional<Order> findByIdWithItems(@Param("id") UUID id);
+}
@@ -0,0 +1,30 @@
+package com.brewforce.pkpl.backend.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Principal yang dipasang JwtAuthenticationFilter ke SecurityContext setelah token diverifikasi.
+ * Controller menerimanya lewat @AuthenticationPrincipal tanpa membaca header Authorization lagi.
+ */
+@Getter
+@AllArgsConstructor
+public class AuthenticatedUser {
+    private final String username;
+    private final String role;
+    private final String name;
+
+    public static AuthenticatedUser from(JwtClaims claims) {
+        return new AuthenticatedUser(claims.getUsername(), claims.getRole(), claims.getName());
+    }
+
+    public boolean hasRole(String expectedRole) {
+        return expectedRole.equals(role);
+    }
+
+    // Authentication#getName() memakai toString() untuk principal yang bukan UserDetails
+    @Override
+    public String toString() {
+        return username;
+    }
+}
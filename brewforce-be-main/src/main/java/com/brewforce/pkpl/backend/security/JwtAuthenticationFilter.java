@@ -18,10 +18,10 @@ import java.util.List;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtUtils jwtUtils;
+    private final VerifiedTokenCache verifiedTokenCache;
 
-    public JwtAuthenticationFilter(JwtUtils jwtUtils) {
-        this.jwtUtils = jwtUtils;
+    public JwtAuthenticationFilter(VerifiedTokenCache verifiedTokenCache) {
+        this.verifiedTokenCache = verifiedTokenCache;
     }
 
     @Override
@@ -34,18 +34,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
     
-        if (!jwtUtils.validateJwtToken(token)) {
+        // Token yang sama dipakai berulang kali selama satu shift, jadi hasil verifikasinya di-cache
+        JwtClaims claims = verifiedTokenCache.verify(token);
+        if (claims == null) {
             sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED, "Token JWT tidak valid atau sudah kedaluwarsa");
             return;
         }
 
-        String username = jwtUtils.getUsernameJwtToken(token);
-        String role = jwtUtils.getRoleFromJwtToken(token);
+        AuthenticatedUser principal = AuthenticatedUser.from(claims);
 
-        List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role));
-        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(username, null,
+        List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_" + principal.getRole()));
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(principal, null,
                 authorities);
-        SecurityContextHolder.getContext().setAuthentication(authentication);
 
         authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
         SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -1,6 +1,8 @@
 package com.brewforce.pkpl.backend.security;
 
 
+import javax.crypto.SecretKey;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,6 +12,7 @@ import org.springframework.stereotype.Component;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
 
 @Component
 public class JwtUtils {
@@ -21,46 +24,36 @@ public class JwtUtils {
     @Value("${brewforce.app.jwtExpirationMs}")
     private int jwtExpirationMs;
 
+    // Key HMAC dan parser bersifat immutable dan thread-safe, jadi cukup dibuat sekali
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
 
-    public String getUsernameJwtToken(String token) {
-        JwtParser jwtParser = Jwts.parser()
-            .verifyWith(Keys.hmacShaKeyFor(jwtSecret.getBytes()))
-            .build();
-    
-        Jws<Claims> claimsJws = jwtParser.parseSignedClaims(token);
-        return claimsJws.getPayload().getSubject();
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parser().verifyWith(signingKey).build();
     }
 
-    public String getRoleFromJwtToken(String token) {
-        JwtParser jwtParser = Jwts.parser().verifyWith(Keys.hmacShaKeyFor(jwtSecret.getBytes())).build();
-        Jws<Claims> claimsJws = jwtParser.parseSignedClaims(token);
-        Claims claims = claimsJws.getPayload();
-        Object role = claims.get("role");
 
-        if (role instanceof String) {
-            return (String) role;
-        }
+    public String getUsernameJwtToken(String token) {
+        return jwtParser.parseSignedClaims(token).getPayload().getSubject();
+    }
 
-        return null;
+    public String getRoleFromJwtToken(String token) {
+        return JwtClaims.from(jwtParser.parseSignedClaims(token).getPayload()).getRole();
     }
 
     public String getNameFromJwtToken(String token) {
-        JwtParser jwtParser = Jwts.parser().verifyWith(Keys.hmacShaKeyFor(jwtSecret.getBytes())).build();
-        Jws<Claims> claimsJws = jwtParser.parseSignedClaims(token);
-        Claims claims = claimsJws.getPayload();
-        Object name = claims.get("name");
-
-        if (name instanceof String) {
-            return (String) name;
-        }
-
-        return null;
+        return JwtClaims.from(jwtParser.parseSignedClaims(token).getPayload()).getName();
     }
 
-    public boolean validateJwtToken(String authToken) {
+    /**
+     * Verifikasi tanda tangan dan masa berlaku token satu kali, lalu kembalikan semua claim
+     * yang dibutuhkan. Mengembalikan null jika token tidak valid.
+     */
+    public JwtClaims parseClaims(String authToken) {
         try {
-            Jwts.parser().verifyWith(Keys.hmacShaKeyFor(jwtSecret.getBytes())).build().parse(authToken);
-            return true;
+            return JwtClaims.from(jwtParser.parseSignedClaims(authToken).getPayload());
         } catch (SignatureException e) {
             logger.error("Invalid JWT signature: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
@@ -72,6 +65,10 @@ public class JwtUtils {
         } catch (UnsupportedJwtException e) {
             logger.error("JWT token is unsupported: {}", e.getMessage());
         }
-        return false;
+        return null;
+    }
+
+    public boolean validateJwtToken(String authToken) {
+        return parseClaims(authToken) != null;
     }
 }
@@ -0,0 +1,140 @@
+package com.brewforce.pkpl.backend.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Cache token yang sudah diverifikasi, dengan key digest SHA-256 dari token (token mentah tidak
+ * disimpan). Entri tidak pernah hidup melewati exp token, jadi token kedaluwarsa tetap ditolak.
+ * Pembacaan tidak mengambil lock. Jika penuh, entri dibuang dengan algoritma CLOCK (perkiraan
+ * LRU): hit hanya menyalakan bit referenced, dan jarum eviction melewati entri yang bit-nya
+ * menyala sekali sebelum membuangnya.
+ */
+@Component
+public class VerifiedTokenCache {
+    static final int MAX_ENTRIES = 10_000;
+
+    private final JwtUtils jwtUtils;
+    private final Clock clock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Jarum CLOCK; hanya disentuh oleh thread yang memegang lock eviction
+    private final Object evictionLock = new Object();
+    private Iterator<Map.Entry<String, Entry>> hand;
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public VerifiedTokenCache(JwtUtils jwtUtils, MeterRegistry meterRegistry) {
+        this(jwtUtils, meterRegistry, Clock.systemUTC());
+    }
+
+    VerifiedTokenCache(JwtUtils jwtUtils, MeterRegistry meterRegistry, Clock clock) {
+        this.jwtUtils = jwtUtils;
+        this.clock = clock;
+        this.hits = Counter.builder("brewforce.jwt.cache")
+                .tag("result", "hit")
+                .description("Token JWT yang claim-nya diambil dari cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("brewforce.jwt.cache")
+                .tag("result", "miss")
+                .description("Token JWT yang harus diverifikasi ulang")
+                .register(meterRegistry);
+        meterRegistry.gauge("brewforce.jwt.cache.size", Tags.empty(), this, VerifiedTokenCache::size);
+    }
+
+    /**
+     * Mengembalikan claim token yang valid, atau null jika token tidak valid/kedaluwarsa.
+     */
+    public JwtClaims verify(String token) {
+        String key = digest(token);
+        Instant now = clock.instant();
+
+        Entry cached = entries.get(key);
+        if (cached != null && !cached.isExpired(now)) {
+            cached.referenced = true;
+            hits.increment();
+            return cached.claims;
+        }
+        if (cached != null) {
+            entries.remove(key, cached);
+        }
+
+        misses.increment();
+        JwtClaims claims = jwtUtils.parseClaims(token);
+        // Token tanpa exp tidak di-cache karena tidak ada batas kapan entri harus dibuang
+        if (claims != null && claims.getExpiresAt() != null) {
+            entries.put(key, new Entry(claims));
+            if (entries.size() > MAX_ENTRIES) {
+                evict(key, now);
+            }
+        }
+        return claims;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    // Paling banyak dua putaran: putaran pertama mematikan bit referenced, putaran kedua pasti
+    // menemukan korban. Entri yang baru saja dimasukkan tidak pernah menjadi korbannya sendiri
+    private void evict(String insertedKey, Instant now) {
+        synchronized (evictionLock) {
+            int visited = 0;
+            int limit = 2 * (entries.size() + 1);
+            while (entries.size() > MAX_ENTRIES && visited++ < limit) {
+                if (hand == null || !hand.hasNext()) {
+                    hand = entries.entrySet().iterator();
+                    if (!hand.hasNext()) {
+                        return;
+                    }
+                }
+                Map.Entry<String, Entry> candidate = hand.next();
+                Entry entry = candidate.getValue();
+                if (candidate.getKey().equals(insertedKey)) {
+                    continue;
+                }
+                if (entry.referenced && !entry.isExpired(now)) {
+                    entry.referenced = false;
+                } else {
+                    entries.remove(candidate.getKey(), entry);
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final JwtClaims claims;
+        private volatile boolean referenced;
+
+        private Entry(JwtClaims claims) {
+            this.claims = claims;
+        }
+
+        private boolean isExpired(Instant now) {
+            return !claims.getExpiresAt().isAfter(now);
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 tidak tersedia", e);
+        }
+    }
+}
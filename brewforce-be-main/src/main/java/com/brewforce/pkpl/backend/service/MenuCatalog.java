@@ -0,0 +1,60 @@
+package com.brewforce.pkpl.backend.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import com.brewforce.pkpl.backend.dto.response.MenuResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.Getter;
+
+/**
+ * Snapshot katalog menu yang tidak berubah setelah dibuat. Body JSON (dan versi gzip-nya)
+ * sudah diserialisasi sehingga GET /api/menus/ cukup menulis byte yang tersimpan.
+ */
+@Getter
+public final class MenuCatalog {
+    private final long generation;
+    private final List<MenuResponse> menus;
+    private final byte[] json;
+    private final byte[] gzipJson;
+    private final String etag;
+    // Strong ETag berlaku per representasi byte, jadi body gzip punya ETag sendiri
+    private final String gzipEtag;
+
+    private MenuCatalog(long generation, List<MenuResponse> menus, byte[] json, byte[] gzipJson, String etag) {
+        this.generation = generation;
+        this.menus = menus;
+        this.json = json;
+        this.gzipJson = gzipJson;
+        this.etag = etag;
+        this.gzipEtag = etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    public static MenuCatalog build(long generation, List<MenuResponse> menus, ObjectMapper objectMapper)
+            throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(menus);
+
+        ByteArrayOutputStream gzipBuffer = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipBuffer)) {
+            gzip.write(json);
+        }
+
+        // ETag diturunkan dari isi, jadi tetap sama setelah restart atau di replika lain
+        return new MenuCatalog(generation, List.copyOf(menus), json, gzipBuffer.toByteArray(), contentEtag(json));
+    }
+
+    private static String contentEtag(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 tidak tersedia", e);
+        }
+    }
+}
@@ -18,5 +18,6 @@ public interface MenuService {
     MenuResponse updateStok(UUID id, UpdateStokRequest request) throws Exception;
     void deleteMenu(UUID id) throws Exception;
     List<Menu> getAllMenus();
+    MenuCatalog getMenuCatalog();
     Menu getMenuById(UUID id);
 }
@@ -1,11 +1,17 @@
 package com.brewforce.pkpl.backend.service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.NoSuchElementException;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
@@ -15,11 +21,27 @@ import com.brewforce.pkpl.backend.dto.request.UpdateStokRequest;
 import com.brewforce.pkpl.backend.dto.response.MenuResponse;
 import com.brewforce.pkpl.backend.model.Menu;
 import com.brewforce.pkpl.backend.repository.MenuRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @Service
 public class MenuServiceImpl implements MenuService {
     @Autowired
     private MenuRepository menuRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Invalidasi lewat generation hanya berlaku di instance yang menerima perubahan menu.
+    // TTL membatasi berapa lama replika lain (dan stok yang berkurang karena order) bisa basi;
+    // stok tetap ikut di katalog karena ditampilkan di daftar menu, validasinya ada di createOrder
+    @Value("${brewforce.menu.catalog-ttl:PT5S}")
+    private Duration catalogTtl = Duration.ofSeconds(5);
+    private Clock clock = Clock.systemUTC();
+
+    // Katalog dibangun ulang jika generation berubah atau TTL habis; snapshot yang dibangun dari
+    // generation lama (karena kalah balapan dengan invalidasi) otomatis ditolak pembaca
+    private final AtomicLong catalogGeneration = new AtomicLong();
+    private final Object catalogLock = new Object();
+    private volatile CachedCatalog menuCatalog;
 
     @Override
     public Menu createMenu(Menu menu) {
@@ -33,6 +55,7 @@ public class MenuServiceImpl implements MenuService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Stok menu tidak boleh negatif");
         }
         menuRepository.save(menu);
+        invalidateMenuCatalog();
         return menu;
     }
 
@@ -49,7 +72,7 @@ public class MenuServiceImpl implements MenuService {
 
     @Override
     public MenuResponse updateMenu(UUID id, UpdateMenuRequest request) throws Exception {
-        Menu menu = menuRepository.findById(id)
+        Menu menu = menuRepository.findActiveById(id)
                 .orElseThrow(() -> new NoSuchElementException("Menu dengan ID " + id + " tidak ditemukan"));
 
         if (request.getStok() < 0) {
@@ -67,13 +90,14 @@ public class MenuServiceImpl implements MenuService {
         menu.setFotoPath(request.getFotoPath());
 
         menuRepository.save(menu);
+        invalidateMenuCatalog();
 
         return toMenuResponse(menu);
     }
 
     @Override
     public MenuResponse updateStok(UUID id, UpdateStokRequest request) throws Exception {
-        Menu menu = menuRepository.findById(id)
+        Menu menu = menuRepository.findActiveById(id)
                 .orElseThrow(() -> new NoSuchElementException("Menu dengan ID " + id + " tidak ditemukan"));
 
         if (request.getStok() < 0) {
@@ -82,34 +106,72 @@ public class MenuServiceImpl implements MenuService {
         menu.setStok(request.getStok());
 
         menuRepository.save(menu);
+        invalidateMenuCatalog();
 
         return toMenuResponse(menu);
     }
 
     @Override
     public void deleteMenu(UUID id) throws Exception {
-        Menu menu = menuRepository.findById(id)
+        Menu menu = menuRepository.findActiveById(id)
                 .orElseThrow(() -> new NoSuchElementException("Menu dengan ID " + id + " tidak ditemukan"));
 
         menu.setDeleted(true);
 
         menuRepository.save(menu);
+        invalidateMenuCatalog();
     }
 
     @Override
     public List<Menu> getAllMenus() {
-        return menuRepository.findAll().stream()
-                .filter(menu -> !menu.isDeleted())
-                .toList();
+        return menuRepository.findAllActive();
+    }
+
+    @Override
+    public MenuCatalog getMenuCatalog() {
+        CachedCatalog cached = menuCatalog;
+        if (isFresh(cached, catalogGeneration.get())) {
+            return cached.catalog();
+        }
+
+        // Hanya satu thread yang membangun ulang; thread lain menunggu lalu memakai hasilnya
+        synchronized (catalogLock) {
+            cached = menuCatalog;
+            long generation = catalogGeneration.get();
+            if (isFresh(cached, generation)) {
+                return cached.catalog();
+            }
+
+            List<MenuResponse> menus = getAllMenus().stream()
+                    .map(this::toMenuResponse)
+                    .toList();
+            MenuCatalog catalog;
+            try {
+                catalog = MenuCatalog.build(generation, menus, objectMapper);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Gagal membangun katalog menu", e);
+            }
+            menuCatalog = new CachedCatalog(catalog, clock.millis() + catalogTtl.toMillis());
+            return catalog;
+        }
+    }
+
+    private boolean isFresh(CachedCatalog cached, long generation) {
+        return cached != null
+                && cached.catalog().getGeneration() == generation
+                && clock.millis() < cached.expiresAtMillis();
+    }
+
+    private void invalidateMenuCatalog() {
+        catalogGeneration.incrementAndGet();
     }
 
     @Override
     public Menu getMenuById(UUID id) {
-        Menu menu = menuRepository.findById(id)
+        return menuRepository.findActiveById(id)
                 .orElseThrow(() -> new NoSuchElementException("Menu not found with id: " + id));
-        if (menu.isDeleted()) {
-            throw new NoSuchElementException("Menu with id: " + id + " is deleted");
-        }
-        return menu;
+    }
+
+    private record CachedCatalog(MenuCatalog catalog, long expiresAtMillis) {
     }
 }
@@ -0,0 +1,32 @@
+package com.brewforce.pkpl.backend.service;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import com.brewforce.pkpl.backend.model.Order;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Application event yang dipublikasikan setiap kali order dibuat atau statusnya berubah.
+ * Listener menerimanya setelah transaksi commit.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderChangedEvent {
+    public static final String ORDER_CREATED = "ORDER_CREATED";
+    public static final String ORDER_STATUS_CHANGED = "ORDER_STATUS_CHANGED";
+
+    private String type;
+    private UUID idOrder;
+    private String username;
+    private String status;
+    private Long revision;
+    private LocalDateTime occurredAt;
+
+    public static OrderChangedEvent of(String type, Order order) {
+        return new OrderChangedEvent(type, order.getIdOrder(), order.getUsername(), order.getStatus(),
+                order.getRevision(), LocalDateTime.now());
+    }
+}
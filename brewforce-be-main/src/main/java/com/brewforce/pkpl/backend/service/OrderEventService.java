@@ -0,0 +1,8 @@
+package com.brewforce.pkpl.backend.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface OrderEventService {
+    SseEmitter subscribe(String lastEventId);
+    void onOrderChanged(OrderChangedEvent event);
+}
@@ -0,0 +1,376 @@
+package com.brewforce.pkpl.backend.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.brewforce.pkpl.backend.dto.response.OrderEventResponse;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Feed Server-Sent Events untuk dashboard kasir. Koneksi SSE memakai async servlet
+ * sehingga koneksi yang idle tidak menahan thread. Satu thread dispatcher memegang
+ * sequence dan buffer replay (jadi tidak perlu dikunci) dan hanya memasukkan event ke
+ * antrian milik tiap subscriber; pengiriman ke socket dilakukan oleh pool sender terpisah.
+ * Antrian per subscriber dibatasi: client yang tertinggal lebih dari SUBSCRIBER_QUEUE_SIZE
+ * event diputus dan akan reconnect dengan Last-Event-ID, sehingga satu client lambat tidak
+ * menghambat client lain. Client yang berhenti membaca sama sekali membuat write ke socket-nya
+ * macet; watchdog memutus subscriber yang satu send-nya melewati batas waktu dan menambah satu
+ * thread sender cadangan selama thread yang macet belum kembali, sehingga beberapa client macet
+ * tidak bisa menghabiskan seluruh pool sender.
+ *
+ * Stream dan buffer replay hanya ada di memori instance ini. Client hanya menerima perubahan
+ * yang di-commit lewat instance yang sama, jadi feed ini hanya lengkap selama backend berjalan
+ * satu instance. Jika di-scale ke beberapa replika, dashboard harus memakai endpoint
+ * /api/orders/changes (berbasis revisi di database) atau event perlu disalurkan lewat broker bersama.
+ */
+@Service
+public class OrderEventServiceImpl implements OrderEventService {
+    private static final Logger logger = LoggerFactory.getLogger(OrderEventServiceImpl.class);
+
+    public static final String RESET_EVENT = "RESET";
+    private static final long EMITTER_TIMEOUT_MS = Duration.ofMinutes(30).toMillis();
+    private static final int REPLAY_BUFFER_SIZE = 1000;
+    private static final int SUBSCRIBER_QUEUE_SIZE = 256;
+    private static final int SENDER_THREADS = 4;
+    // Batas thread cadangan untuk menggantikan thread sender yang macet di write socket
+    private static final int MAX_SPARE_SENDERS = 16;
+
+    // Id event berbentuk "<bootId>:<sequence>" agar id dari proses sebelum restart tidak tertukar
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Deque<BufferedEvent> replayBuffer = new ArrayDeque<>();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-event-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger senderThreadCount = new AtomicInteger();
+    private final ThreadPoolExecutor senders = new ThreadPoolExecutor(
+            SENDER_THREADS, SENDER_THREADS + MAX_SPARE_SENDERS, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "order-event-sender-" + senderThreadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    private int spareSenders = 0;
+    private long sequence = 0;
+
+    // Satu send yang lebih lama dari ini dianggap client macet (tidak membaca socket-nya)
+    @Value("${brewforce.order.sse-send-timeout:PT10S}")
+    private Duration sendTimeout = Duration.ofSeconds(10);
+
+    @Override
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = createEmitter();
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::closed);
+        emitter.onTimeout(subscriber::closed);
+        emitter.onError(e -> subscriber.closed());
+
+        dispatcher.execute(() -> {
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                replay(subscriber, lastEventId);
+            }
+            if (!subscriber.isClosed()) {
+                subscribers.add(subscriber);
+            }
+        });
+        return emitter;
+    }
+
+    @Override
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        OrderEventResponse payload = OrderEventResponse.builder()
+                .type(event.getType())
+                .idOrder(event.getIdOrder())
+                .username(event.getUsername())
+                .status(event.getStatus())
+                .revision(event.getRevision())
+                .occurredAt(event.getOccurredAt())
+                .build();
+
+        dispatcher.execute(() -> {
+            BufferedEvent buffered = new BufferedEvent(++sequence, payload);
+            replayBuffer.addLast(buffered);
+            if (replayBuffer.size() > REPLAY_BUFFER_SIZE) {
+                replayBuffer.removeFirst();
+            }
+            for (Subscriber subscriber : subscribers) {
+                subscriber.enqueue(() -> toSseEvent(buffered));
+            }
+        });
+    }
+
+    // Komentar SSE berkala supaya proxy tidak memutus koneksi idle dan client yang mati terdeteksi
+    @Scheduled(fixedRate = 25000)
+    public void sendHeartbeat() {
+        dispatcher.execute(() -> {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.enqueue(() -> SseEmitter.event().comment("ping"));
+            }
+        });
+    }
+
+    // Watchdog untuk subscriber yang send-nya tidak kunjung selesai
+    @Scheduled(fixedDelay = 1000)
+    public void evictStalledSubscribers() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.evictIfStalled(now);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        senders.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.complete();
+        }
+        subscribers.clear();
+    }
+
+    SseEmitter createEmitter() {
+        return new SseEmitter(EMITTER_TIMEOUT_MS);
+    }
+
+    // Thread sender yang macet tidak bisa direbut kembali, jadi pool diberi thread tambahan
+    // sampai send yang macet itu gagal atau selesai. ThreadPoolExecutor langsung menjalankan
+    // task yang sudah mengantri ketika corePoolSize dinaikkan
+    private boolean acquireSpareSender() {
+        synchronized (senders) {
+            if (spareSenders >= MAX_SPARE_SENDERS) {
+                return false;
+            }
+            spareSenders++;
+            senders.setCorePoolSize(SENDER_THREADS + spareSenders);
+            return true;
+        }
+    }
+
+    private void releaseSpareSender() {
+        synchronized (senders) {
+            spareSenders--;
+            senders.setCorePoolSize(SENDER_THREADS + spareSenders);
+        }
+    }
+
+    /**
+     * Mengantrikan ulang event setelah lastEventId. Jika event tersebut sudah tidak ada di buffer,
+     * berasal dari proses sebelum restart, atau terlalu banyak untuk antrian subscriber, client
+     * dikirimi event RESET agar memuat ulang daftar.
+     */
+    private void replay(Subscriber subscriber, String lastEventId) {
+        long lastSequence = parseSequence(lastEventId);
+        long oldestAvailable = replayBuffer.isEmpty() ? sequence + 1 : replayBuffer.peekFirst().sequence;
+
+        boolean replayable = lastSequence >= 0 && lastSequence <= sequence && lastSequence + 1 >= oldestAvailable;
+
+        if (!replayable || sequence - lastSequence > SUBSCRIBER_QUEUE_SIZE) {
+            String resetId = eventId(sequence);
+            subscriber.enqueue(() -> SseEmitter.event().id(resetId).name(RESET_EVENT).data(""));
+            return;
+        }
+
+        List<BufferedEvent> missed = new ArrayList<>();
+        for (BufferedEvent buffered : replayBuffer) {
+            if (buffered.sequence > lastSequence) {
+                missed.add(buffered);
+            }
+        }
+        for (BufferedEvent buffered : missed) {
+            subscriber.enqueue(() -> toSseEvent(buffered));
+        }
+    }
+
+    private long parseSequence(String lastEventId) {
+        int separatorIndex = lastEventId.indexOf(':');
+        if (separatorIndex < 0 || !lastEventId.substring(0, separatorIndex).equals(bootId)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(separatorIndex + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Builder dibuat ulang untuk tiap subscriber karena SseEventBuilder tidak aman dipakai berulang
+    private SseEmitter.SseEventBuilder toSseEvent(BufferedEvent buffered) {
+        return SseEmitter.event()
+                .id(eventId(buffered.sequence))
+                .name(buffered.payload.getType())
+                .data(buffered.payload, MediaType.APPLICATION_JSON);
+    }
+
+    private String eventId(long eventSequence) {
+        return bootId + ":" + eventSequence;
+    }
+
+    private static final class BufferedEvent {
+        private final long sequence;
+        private final OrderEventResponse payload;
+
+        private BufferedEvent(long sequence, OrderEventResponse payload) {
+            this.sequence = sequence;
+            this.payload = payload;
+        }
+    }
+
+    /**
+     * Satu koneksi SSE beserta antrian keluarnya. Paling banyak satu thread sender yang
+     * mengosongkan antrian sebuah subscriber pada satu waktu, sehingga urutan event terjaga.
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Queue<Supplier<SseEmitter.SseEventBuilder>> queue =
+                new ArrayBlockingQueue<>(SUBSCRIBER_QUEUE_SIZE);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private volatile boolean closed;
+        // Dijaga oleh monitor subscriber ini: kapan send yang sedang berjalan dimulai (0 jika
+        // tidak ada), thread yang menjalankannya, dan apakah watchdog sudah memberi thread cadangan
+        private long sendStartedNanos;
+        private Thread sendingThread;
+        private boolean evicted;
+        private boolean holdsSpareSender;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private boolean isClosed() {
+            return closed;
+        }
+
+        // Dipanggil dari thread dispatcher; tidak pernah menunggu socket
+        private void enqueue(Supplier<SseEmitter.SseEventBuilder> event) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                logger.warn("SSE subscriber tertinggal lebih dari {} event, koneksi diputus", SUBSCRIBER_QUEUE_SIZE);
+                closed = true;
+                subscribers.remove(this);
+            }
+            scheduleDrain();
+        }
+
+        // Emitter sudah selesai/timeout/error dari sisi container
+        private void closed() {
+            closed = true;
+            completed.set(true);
+            subscribers.remove(this);
+            queue.clear();
+        }
+
+        private void scheduleDrain() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                senders.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+            }
+        }
+
+        private void drain() {
+            try {
+                Supplier<SseEmitter.SseEventBuilder> event;
+                while (!closed && (event = queue.poll()) != null) {
+                    sendStarted();
+                    try {
+                        emitter.send(event.get());
+                    } catch (IOException | IllegalStateException e) {
+                        closed = true;
+                        subscribers.remove(this);
+                    } finally {
+                        sendFinished();
+                    }
+                }
+                if (closed) {
+                    queue.clear();
+                    complete();
+                }
+            } finally {
+                draining.set(false);
+            }
+            // Event yang masuk tepat setelah loop selesai tetap harus dikirim
+            if (!closed && !queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private synchronized void sendStarted() {
+            sendStartedNanos = System.nanoTime();
+            sendingThread = Thread.currentThread();
+        }
+
+        private synchronized void sendFinished() {
+            sendStartedNanos = 0;
+            sendingThread = null;
+            if (holdsSpareSender) {
+                holdsSpareSender = false;
+                releaseSpareSender();
+            }
+            // Interrupt dari watchdog tidak boleh terbawa ke task berikutnya di thread pool ini
+            Thread.interrupted();
+        }
+
+        // Dipanggil watchdog. Subscriber berhenti menerima event; thread yang macet di-interrupt
+        // dan, selama belum kembali, digantikan thread cadangan
+        private synchronized void evictIfStalled(long now) {
+            if (evicted || sendStartedNanos == 0 || now - sendStartedNanos < sendTimeout.toNanos()) {
+                return;
+            }
+            evicted = true;
+            closed = true;
+            subscribers.remove(this);
+            queue.clear();
+            holdsSpareSender = acquireSpareSender();
+            logger.warn("SSE subscriber tidak membaca selama lebih dari {}, koneksi diputus", sendTimeout);
+            sendingThread.interrupt();
+        }
+
+        private void complete() {
+            if (!completed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                logger.debug("SSE emitter sudah selesai: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.brewforce.pkpl.backend.service;
+
+public interface OrderExpiryService {
+    int expireStaleOrders();
+}
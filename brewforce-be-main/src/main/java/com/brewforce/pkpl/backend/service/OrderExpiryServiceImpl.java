@@ -0,0 +1,94 @@
+package com.brewforce.pkpl.backend.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.brewforce.pkpl.backend.dto.response.OrderStatusResponse;
+import com.brewforce.pkpl.backend.repository.MenuRepository;
+import com.brewforce.pkpl.backend.repository.OrderRepository;
+
+/**
+ * Membatalkan order AWAITING_PAYMENT yang melewati batas waktu bayar dan mengembalikan stoknya.
+ * Setiap batch berjalan di transaksinya sendiri dengan jumlah statement yang tetap, berapa pun
+ * banyaknya order atau item di dalamnya.
+ */
+@Service
+public class OrderExpiryServiceImpl implements OrderExpiryService {
+    private static final Logger logger = LoggerFactory.getLogger(OrderExpiryServiceImpl.class);
+
+    private final OrderRepository orderRepository;
+    private final MenuRepository menuRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+
+    @Value("${brewforce.order.payment-window:PT15M}")
+    private Duration paymentWindow;
+
+    @Value("${brewforce.order.expiry-batch-size:200}")
+    private int batchSize;
+
+    @Autowired
+    public OrderExpiryServiceImpl(OrderRepository orderRepository, MenuRepository menuRepository,
+            ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager) {
+        this(orderRepository, menuRepository, eventPublisher, new TransactionTemplate(transactionManager),
+                Clock.systemDefaultZone());
+    }
+
+    OrderExpiryServiceImpl(OrderRepository orderRepository, MenuRepository menuRepository,
+            ApplicationEventPublisher eventPublisher, TransactionTemplate transactionTemplate, Clock clock) {
+        this.orderRepository = orderRepository;
+        this.menuRepository = menuRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.clock = clock;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${brewforce.order.expiry-sweep-interval:PT1M}")
+    public int expireStaleOrders() {
+        LocalDateTime cutoff = LocalDateTime.now(clock).minus(paymentWindow);
+        int total = 0;
+        int expired;
+        do {
+            expired = transactionTemplate.execute(status -> expireBatch(cutoff));
+            total += expired;
+        } while (expired == batchSize);
+
+        if (total > 0) {
+            logger.info("Membatalkan {} order AWAITING_PAYMENT yang dibuat sebelum {}", total, cutoff);
+        }
+        return total;
+    }
+
+    private int expireBatch(LocalDateTime cutoff) {
+        List<UUID> ids = orderRepository.lockExpiredAwaitingPayment(cutoff, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        menuRepository.restoreStokForOrders(ids);
+        orderRepository.cancelWithNewRevision(ids);
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        for (OrderStatusResponse cancelled : orderRepository.findStatusesByIdOrderIn(ids)) {
+            eventPublisher.publishEvent(new OrderChangedEvent(OrderChangedEvent.ORDER_STATUS_CHANGED,
+                    cancelled.getIdOrder(), cancelled.getUsername(), cancelled.getStatus(),
+                    cancelled.getRevision(), now));
+        }
+        return ids.size();
+    }
+}
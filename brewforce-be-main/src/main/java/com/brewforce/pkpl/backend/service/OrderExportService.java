@@ -0,0 +1,12 @@
+package com.brewforce.pkpl.backend.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+import com.brewforce.pkpl.backend.dto.request.OrderExportFormat;
+
+public interface OrderExportService {
+    void exportOrders(LocalDateTime from, LocalDateTime to, OrderExportFormat format, OutputStream out)
+            throws IOException;
+}
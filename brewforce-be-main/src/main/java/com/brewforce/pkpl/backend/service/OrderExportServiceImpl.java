@@ -0,0 +1,85 @@
+package com.brewforce.pkpl.backend.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.brewforce.pkpl.backend.dto.request.OrderExportFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@Service
+public class OrderExportServiceImpl implements OrderExportService {
+    // Jumlah baris yang diambil per round trip dari cursor server-side Postgres
+    private static final int FETCH_SIZE = 500;
+
+    // Nama dan harga dibaca dari salinan di order_menu, tanpa join ke menu
+    private static final String EXPORT_SQL =
+            "select o.id_order, o.created_at, o.username, o.status, o.total_harga, " +
+            "om.menu_id, om.nama_menu, om.quantity, om.harga_satuan " +
+            "from orders o " +
+            "left join order_menu om on om.order_id = o.id_order " +
+            "where o.created_at >= ? and o.created_at < ? " +
+            "order by o.created_at, o.id_order";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public OrderExportServiceImpl(DataSource dataSource, PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Postgres hanya memakai cursor (fetch size) jika autocommit mati, jadi query dijalankan di transaksi
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void exportOrders(LocalDateTime from, LocalDateTime to, OrderExportFormat format, OutputStream out)
+            throws IOException {
+        BufferedWriter bufferedWriter = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        OrderExportWriter exportWriter = new OrderExportWriter(bufferedWriter, format, objectMapper);
+        exportWriter.start();
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(EXPORT_SQL, (RowCallbackHandler) rs -> {
+                try {
+                    exportWriter.writeRow(
+                            rs.getObject("id_order", UUID.class),
+                            rs.getTimestamp("created_at").toLocalDateTime(),
+                            rs.getString("username"),
+                            rs.getString("status"),
+                            rs.getLong("total_harga"),
+                            rs.getObject("menu_id", UUID.class),
+                            rs.getString("nama_menu"),
+                            (Integer) rs.getObject("quantity"),
+                            (Integer) rs.getObject("harga_satuan"));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, Timestamp.valueOf(from), Timestamp.valueOf(to)));
+        } catch (UncheckedIOException e) {
+            // Client memutus koneksi di tengah export
+            throw e.getCause();
+        }
+
+        exportWriter.finish();
+    }
+}
@@ -0,0 +1,113 @@
+package com.brewforce.pkpl.backend.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import com.brewforce.pkpl.backend.dto.request.OrderExportFormat;
+import com.brewforce.pkpl.backend.dto.response.OrderItemResponse;
+import com.brewforce.pkpl.backend.dto.response.OrderResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Menulis baris export satu per satu. Baris harus datang berurutan per order;
+ * untuk JSON lines item dikumpulkan hanya sampai order berganti, jadi memori yang
+ * dipakai sebatas satu order, bukan seluruh hasil export.
+ */
+class OrderExportWriter {
+    private static final String CSV_HEADER =
+            "id_order,created_at,username,status,total_harga,menu_id,nama_menu,quantity,harga_satuan";
+
+    private final Writer writer;
+    private final OrderExportFormat format;
+    private final ObjectMapper objectMapper;
+
+    private OrderResponse currentOrder;
+
+    OrderExportWriter(Writer writer, OrderExportFormat format, ObjectMapper objectMapper) {
+        this.writer = writer;
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    void start() throws IOException {
+        if (format == OrderExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+    }
+
+    void writeRow(UUID idOrder, LocalDateTime createdAt, String username, String status, long totalHarga,
+            UUID menuId, String namaMenu, Integer quantity, Integer hargaSatuan) throws IOException {
+        if (format == OrderExportFormat.CSV) {
+            writer.write(String.join(",",
+                    csv(idOrder), csv(createdAt), csv(username), csv(status), csv(totalHarga),
+                    csv(menuId), csv(namaMenu), csv(quantity), csv(hargaSatuan)));
+            writer.write('\n');
+            return;
+        }
+
+        if (currentOrder == null || !currentOrder.getIdOrder().equals(idOrder)) {
+            flushOrder();
+            currentOrder = OrderResponse.builder()
+                    .idOrder(idOrder)
+                    .createdDateTime(createdAt)
+                    .username(username)
+                    .status(status)
+                    .totalHarga(totalHarga)
+                    .items(new ArrayList<>())
+                    .build();
+        }
+        if (menuId != null) {
+            List<OrderItemResponse> items = currentOrder.getItems();
+            items.add(OrderItemResponse.builder()
+                    .menuId(menuId)
+                    .menuName(namaMenu)
+                    .quantity(quantity == null ? 0 : quantity)
+                    .price(hargaSatuan == null ? 0 : hargaSatuan)
+                    .build());
+        }
+    }
+
+    void finish() throws IOException {
+        flushOrder();
+        writer.flush();
+    }
+
+    private void flushOrder() throws IOException {
+        if (currentOrder == null) {
+            return;
+        }
+        writer.write(objectMapper.writeValueAsString(currentOrder));
+        writer.write('\n');
+        currentOrder = null;
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        // Teks bebas (username, nama menu) yang diawali karakter formula akan dieksekusi oleh
+        // Excel/Sheets saat file dibuka; awalan ' membuatnya dibaca sebagai teks biasa.
+        // Angka, UUID dan tanggal tidak pernah berasal dari input user sehingga dibiarkan
+        if (value instanceof CharSequence && startsLikeFormula(text)) {
+            text = "'" + text;
+        }
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+
+    private static boolean startsLikeFormula(String text) {
+        if (text.isEmpty()) {
+            return false;
+        }
+        char first = text.charAt(0);
+        return first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r';
+    }
+}
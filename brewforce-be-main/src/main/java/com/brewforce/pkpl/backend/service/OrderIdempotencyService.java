@@ -0,0 +1,8 @@
+package com.brewforce.pkpl.backend.service;
+
+import java.util.UUID;
+
+public interface OrderIdempotencyService {
+    UUID findOrderId(String username, String idempotencyKey);
+    void record(String username, String idempotencyKey, UUID idOrder);
+}
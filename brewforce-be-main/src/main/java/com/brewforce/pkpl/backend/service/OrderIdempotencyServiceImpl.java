@@ -0,0 +1,136 @@
+package com.brewforce.pkpl.backend.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.brewforce.pkpl.backend.model.OrderIdempotencyKey;
+import com.brewforce.pkpl.backend.repository.OrderIdempotencyKeyRepository;
+
+import jakarta.transaction.Transactional;
+
+/**
+ * Tabel Idempotency-Key untuk pembuatan order. Lookup dilayani dari map di memori; tabel
+ * order_idempotency_keys menjadi sumber kebenaran sehingga key tetap berlaku setelah restart
+ * atau saat retry mendarat di instance lain. Map dibatasi MAX_CACHED_KEYS entri; key terlama
+ * dibuang lebih dulu (FIFO, sesuai umur key yang dihitung dari pembuatannya) dan tetap
+ * ditemukan lewat tabel. Lookup tidak mengambil lock.
+ */
+@Service
+public class OrderIdempotencyServiceImpl implements OrderIdempotencyService {
+    static final Duration RETENTION = Duration.ofHours(24);
+    static final int MAX_CACHED_KEYS = 10_000;
+
+    private final OrderIdempotencyKeyRepository idempotencyKeyRepository;
+    private final Clock clock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Urutan masuk untuk eviction FIFO; bisa berisi entri yang sudah diganti atau di-purge,
+    // yang dilewati saat dibuang
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    @Autowired
+    public OrderIdempotencyServiceImpl(OrderIdempotencyKeyRepository idempotencyKeyRepository) {
+        this(idempotencyKeyRepository, Clock.systemDefaultZone());
+    }
+
+    OrderIdempotencyServiceImpl(OrderIdempotencyKeyRepository idempotencyKeyRepository, Clock clock) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.clock = clock;
+    }
+
+    @Override
+    public UUID findOrderId(String username, String idempotencyKey) {
+        String cacheKey = cacheKey(username, idempotencyKey);
+        Entry entry = entries.get(cacheKey);
+        if (entry != null) {
+            return entry.idOrder;
+        }
+
+        return idempotencyKeyRepository.findByUsernameAndIdempotencyKey(username, idempotencyKey)
+                .map(stored -> {
+                    cache(cacheKey, stored.getIdOrder());
+                    return stored.getIdOrder();
+                })
+                .orElse(null);
+    }
+
+    /**
+     * Dipanggil di dalam transaksi createOrder. Unique constraint (username, idempotency_key)
+     * membuat retry yang berjalan bersamaan gagal dan di-rollback, termasuk pengurangan stoknya.
+     */
+    @Override
+    public void record(String username, String idempotencyKey, UUID idOrder) {
+        OrderIdempotencyKey stored = new OrderIdempotencyKey();
+        stored.setUsername(username);
+        stored.setIdempotencyKey(idempotencyKey);
+        stored.setIdOrder(idOrder);
+        idempotencyKeyRepository.saveAndFlush(stored);
+
+        // Map baru diisi setelah commit agar order yang di-rollback tidak pernah di-replay
+        String cacheKey = cacheKey(username, idempotencyKey);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache(cacheKey, idOrder);
+                }
+            });
+        } else {
+            cache(cacheKey, idOrder);
+        }
+    }
+
+    @Scheduled(fixedRate = 3600000)
+    @Transactional
+    public void purgeExpired() {
+        Instant cutoff = clock.instant().minus(RETENTION);
+        entries.values().removeIf(entry -> entry.createdAt.isBefore(cutoff));
+        insertionOrder.removeIf(entry -> entry.createdAt.isBefore(cutoff));
+        idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.ofInstant(cutoff, clock.getZone()));
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void cache(String cacheKey, UUID idOrder) {
+        Entry entry = new Entry(cacheKey, idOrder, clock.instant());
+        entries.put(cacheKey, entry);
+        insertionOrder.add(entry);
+        while (entries.size() > MAX_CACHED_KEYS) {
+            Entry oldest = insertionOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            entries.remove(oldest.cacheKey, oldest);
+        }
+    }
+
+    private String cacheKey(String username, String idempotencyKey) {
+        return username + '\u0000' + idempotencyKey;
+    }
+
+    private static final class Entry {
+        private final String cacheKey;
+        private final UUID idOrder;
+        private final Instant createdAt;
+
+        private Entry(String cacheKey, UUID idOrder, Instant createdAt) {
+            this.cacheKey = cacheKey;
+            this.idOrder = idOrder;
+            this.createdAt = createdAt;
+        }
+    }
+}
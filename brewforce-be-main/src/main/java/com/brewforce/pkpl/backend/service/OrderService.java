@@ -3,14 +3,18 @@ package com.brewforce.pkpl.backend.service;
 import java.util.List;
 import java.util.UUID;
 import org.springframework.stereotype.Service;
+import com.brewforce.pkpl.backend.dto.request.OrderCursor;
+import com.brewforce.pkpl.backend.dto.response.OrderStatusResponse;
 import com.brewforce.pkpl.backend.model.Order;
 
 @Service
 public interface OrderService {
     Order createOrder(List<UUID> menuIds, List<Integer> quantities, String username);
-    List<Order> getAllOrders();
+    Order createOrder(List<UUID> menuIds, List<Integer> quantities, String username, String idempotencyKey);
     Order getOrderById(UUID id);
-    List<Order> getOrdersByStatuses(List<String> statuses);
+    OrderStatusResponse getOrderStatus(UUID id);
     Order updateStatusOrder(Order updateOrder);
-    List<Order> getOrdersByUsername(String username);
+    List<Order> getOrdersPage(List<String> statuses, OrderCursor after, int limit);
+    List<Order> getOrdersPageByUsername(String username, OrderCursor after, int limit);
+    List<Order> getOrdersChangedSince(long sinceRevision, int limit);
 }
@@ -1,16 +1,27 @@
 package com.brewforce.pkpl.backend.service;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.brewforce.pkpl.backend.dto.request.OrderCursor;
+import com.brewforce.pkpl.backend.dto.response.OrderStatusResponse;
 import com.brewforce.pkpl.backend.model.Menu;
 import com.brewforce.pkpl.backend.model.Order;
-import com.brewforce.pkpl.backend.model.OrderMenu;
 import com.brewforce.pkpl.backend.repository.MenuRepository;
 import com.brewforce.pkpl.backend.repository.OrderRepository;
 
@@ -20,64 +31,93 @@ import jakarta.transaction.Transactional;
 public class OrderServiceImpl implements OrderService {
     private final OrderRepository orderRepository;
     private final MenuRepository menuRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderIdempotencyService orderIdempotencyService;
 
     @Autowired
-    public OrderServiceImpl(OrderRepository orderRepository, MenuRepository menuRepository) {
+    public OrderServiceImpl(OrderRepository orderRepository, MenuRepository menuRepository,
+            ApplicationEventPublisher eventPublisher, OrderIdempotencyService orderIdempotencyService) {
         this.orderRepository = orderRepository;
         this.menuRepository = menuRepository;
+        this.eventPublisher = eventPublisher;
+        this.orderIdempotencyService = orderIdempotencyService;
         }
  
         @Transactional
         public Order createOrder(List<UUID> menuIds, List<Integer> quantities, String username) {
-            List<Order> existingOrders = orderRepository.findByUsername(username);
-            for (Order existingOrder : existingOrders) {
-                String status = existingOrder.getStatus();
-                if (!status.equals("CANCELLED") && !status.equals("COMPLETED")) {
-                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                        "User already has an active order with status: " + status);
-                }
+            return createOrder(menuIds, quantities, username, null);
         }
 
-        Order order = new Order();
-        
+        @Override
+        @Transactional
+        public Order createOrder(List<UUID> menuIds, List<Integer> quantities, String username,
+                String idempotencyKey) {
+            Optional<Order> activeOrder = orderRepository.findFirstByUsernameAndStatusNotIn(username,
+                    List.of("CANCELLED", "COMPLETED"));
+            if (activeOrder.isPresent()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "User already has an active order with status: " + activeOrder.get().getStatus());
+        }
+
+        // Gabungkan menuId yang sama sebelum harga dan stok dihitung
+        Map<UUID, Integer> mergedQuantities = new LinkedHashMap<>();
         for (int i = 0; i < menuIds.size(); i++) {
-            Menu menu = menuRepository.findById(menuIds.get(i))
-                .orElseThrow(() -> new RuntimeException("Menu not found"));
+            mergedQuantities.merge(menuIds.get(i), quantities.get(i), Integer::sum);
+        }
 
-            order.addMenuItem(menu, quantities.get(i));
+        List<Menu> menus = menuRepository.findByIdMenuInOrderByIdMenu(mergedQuantities.keySet());
+        Map<UUID, Menu> menusById = new HashMap<>();
+        for (Menu menu : menus) {
+            menusById.put(menu.getIdMenu(), menu);
         }
-        order.setUsername(username);
 
-        return orderRepository.save(order);
-    }
+        Order order = new Order();
 
-    @Override
-    public List<Order> getAllOrders() {
-        return orderRepository.findAll();
-    }
+        for (Map.Entry<UUID, Integer> entry : mergedQuantities.entrySet()) {
+            Menu menu = menusById.get(entry.getKey());
+            if (menu == null) {
+                throw new RuntimeException("Menu not found");
+            }
 
-    @Override
-    public Order getOrderById(UUID id) {
-        for (Order order : orderRepository.findAll()) {
-            if (order.getIdOrder().equals(id)) {
-                return order;
+            order.addMenuItem(menu, entry.getValue());
+        }
+
+        // Kurangi stok secara atomik dengan urutan id yang tetap; stok tidak pernah minus
+        for (Menu menu : menus) {
+            int quantity = mergedQuantities.get(menu.getIdMenu());
+            if (menuRepository.decrementStok(menu.getIdMenu(), quantity) == 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Stok menu " + menu.getNamaMenu() + " tidak mencukupi.");
             }
         }
-        return null;
+        order.setUsername(username);
+
+        Order savedOrder = orderRepository.save(order);
+        if (idempotencyKey != null) {
+            // Disimpan di transaksi yang sama: key hanya tercatat jika order benar-benar commit
+            orderIdempotencyService.record(username, idempotencyKey, savedOrder.getIdOrder());
+        }
+        stampRevision(savedOrder);
+        eventPublisher.publishEvent(OrderChangedEvent.of(OrderChangedEvent.ORDER_CREATED, savedOrder));
+        return savedOrder;
     }
 
     @Override
-    public List<Order> getOrdersByStatuses(List<String> statuses) {
-        if (statuses == null || statuses.isEmpty()) {
-            return orderRepository.findAll();
-        }
+    public Order getOrderById(UUID id) {
+        return orderRepository.findByIdWithItems(id).orElse(null);
+    }
 
-        return orderRepository.findByStatusIn(statuses);
+    @Override
+    public OrderStatusResponse getOrderStatus(UUID id) {
+        return orderRepository.findStatusById(id).orElse(null);
     }
 
     @Override
     @Transactional
     public Order updateStatusOrder(Order updateOrder) {
+        // Kunci baris order dulu agar status yang dibaca tidak sedang diubah sweeper kedaluwarsa
+        orderRepository.lockById(updateOrder.getIdOrder());
+
         // Ambil order berdasarkan ID
         Order order = getOrderById(updateOrder.getIdOrder());
         if (order == null) {
@@ -130,29 +170,70 @@ public class OrderServiceImpl implements OrderService {
         }
         
         orderRepository.save(order);
+        stampRevision(order);
+        eventPublisher.publishEvent(OrderChangedEvent.of(OrderChangedEvent.ORDER_STATUS_CHANGED, order));
         return order;
     }
 
     /**
-     * Mengembalikan stok menu ketika order dibatalkan
+     * Memberi order revisi baru berupa id transaksi yang sedang berjalan. Tidak ada lock yang
+     * diambil: /changes hanya membaca revisi di bawah transaksi tertua yang masih berjalan,
+     * sehingga urutan commit tidak perlu diserialkan di sini.
+     */
+    private void stampRevision(Order order) {
+        order.setRevision(orderRepository.nextRevision());
+    }
+
+    /**
+     * Mengembalikan stok menu ketika order dibatalkan. Semua item dikembalikan dalam satu
+     * statement (menu yang muncul lebih dari sekali dijumlahkan), bukan satu UPDATE per item
      */
     private void restoreMenuStock(Order order) {
-        // Untuk setiap item dalam order
-        for (OrderMenu orderMenuItem : order.getOrderMenuItems()) {
-            Menu menu = orderMenuItem.getMenu();
-            int quantityToRestore = orderMenuItem.getQuantity();
-            
-            // Tambahkan kembali stok
-            menu.setStok(menu.getStok() + quantityToRestore);
-            
-            // Simpan perubahan pada menu
-            menuRepository.save(menu);
+        menuRepository.restoreStokForOrders(List.of(order.getIdOrder()));
+    }
+
+    @Override
+    public List<Order> getOrdersPage(List<String> statuses, OrderCursor after, int limit) {
+        List<UUID> ids;
+        if (statuses == null || statuses.isEmpty()) {
+            ids = orderRepository.findPageIds(after.getCreatedAt(), after.getIdOrder(), PageRequest.of(0, limit));
+        } else {
+            ids = orderRepository.findPageIdsByStatusIn(statuses, after.getCreatedAt(), after.getIdOrder(),
+                    PageRequest.of(0, limit));
         }
+        return loadPage(ids);
+    }
+
+    @Override
+    public List<Order> getOrdersPageByUsername(String username, OrderCursor after, int limit) {
+        List<UUID> ids = orderRepository.findPageIdsByUsername(username, after.getCreatedAt(), after.getIdOrder(),
+                PageRequest.of(0, limit));
+        return loadPage(ids);
     }
 
     @Override
-    public List<Order> getOrdersByUsername(String username) {
-        return orderRepository.findByUsername(username);
+    public List<Order> getOrdersChangedSince(long sinceRevision, int limit) {
+        List<UUID> ids = orderRepository.findIdsChangedSince(sinceRevision, limit);
+        if (ids.size() == limit) {
+            // Halaman penuh bisa memotong order-order dari satu transaksi; lengkapi revisi terakhir
+            ids = completeLastRevision(ids);
+        }
+        List<Order> orders = new ArrayList<>(loadPage(ids));
+        orders.sort(Comparator.comparing(Order::getRevision));
+        return orders;
+    }
+
+    private List<UUID> completeLastRevision(List<UUID> ids) {
+        Set<UUID> completed = new LinkedHashSet<>(ids);
+        completed.addAll(orderRepository.findIdsWithSameRevisionAs(ids.get(ids.size() - 1)));
+        return new ArrayList<>(completed);
+    }
+
+    private List<Order> loadPage(List<UUID> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return orderRepository.findAllWithItemsByIdOrderIn(ids);
     }
 
 }
@@ -0,0 +1,10 @@
+package com.brewforce.pkpl.backend.service;
+
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.brewforce.pkpl.backend.dto.response.OrderStatusResponse;
+
+public interface OrderStatusWaitService {
+    DeferredResult<OrderStatusResponse> waitForChange(OrderStatusResponse current);
+    void onOrderChanged(OrderChangedEvent event);
+}
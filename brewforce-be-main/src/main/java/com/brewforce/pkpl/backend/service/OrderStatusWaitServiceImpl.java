@@ -0,0 +1,78 @@
+package com.brewforce.pkpl.backend.service;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.brewforce.pkpl.backend.dto.response.OrderStatusResponse;
+import com.brewforce.pkpl.backend.repository.OrderRepository;
+
+/**
+ * Long-poll untuk satu order: request ditahan sebagai DeferredResult (tanpa thread servlet
+ * yang menunggu) sampai updateStatusOrder mengubah order tersebut atau timeout habis.
+ */
+@Service
+public class OrderStatusWaitServiceImpl implements OrderStatusWaitService {
+    static final long WAIT_TIMEOUT_MS = Duration.ofSeconds(30).toMillis();
+
+    private final OrderRepository orderRepository;
+    private final ConcurrentHashMap<UUID, Set<DeferredResult<OrderStatusResponse>>> waiters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OrderStatusWaitServiceImpl(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    @Override
+    public DeferredResult<OrderStatusResponse> waitForChange(OrderStatusResponse current) {
+        UUID idOrder = current.getIdOrder();
+        DeferredResult<OrderStatusResponse> result = new DeferredResult<>(WAIT_TIMEOUT_MS);
+        // Timeout berarti status belum berubah; client menerima status yang sama lalu menunggu lagi
+        result.onTimeout(() -> result.setResult(current));
+        result.onCompletion(() -> removeWaiter(idOrder, result));
+
+        waiters.computeIfAbsent(idOrder, id -> ConcurrentHashMap.newKeySet()).add(result);
+
+        // Cek ulang setelah terdaftar: perubahan yang commit di antara pembacaan status awal
+        // dan pendaftaran tidak akan memicu event lagi, jadi harus ditangkap di sini
+        orderRepository.findStatusById(idOrder)
+                .filter(latest -> !Objects.equals(latest.getRevision(), current.getRevision()))
+                .ifPresent(result::setResult);
+        return result;
+    }
+
+    @Override
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        Set<DeferredResult<OrderStatusResponse>> orderWaiters = waiters.remove(event.getIdOrder());
+        if (orderWaiters == null) {
+            return;
+        }
+
+        OrderStatusResponse changed = new OrderStatusResponse(event.getIdOrder(), event.getUsername(),
+                event.getStatus(), event.getRevision());
+        for (DeferredResult<OrderStatusResponse> waiter : orderWaiters) {
+            waiter.setResult(changed);
+        }
+    }
+
+    int waiterCount(UUID idOrder) {
+        Set<DeferredResult<OrderStatusResponse>> orderWaiters = waiters.get(idOrder);
+        return orderWaiters == null ? 0 : orderWaiters.size();
+    }
+
+    private void removeWaiter(UUID idOrder, DeferredResult<OrderStatusResponse> result) {
+        waiters.computeIfPresent(idOrder, (id, orderWaiters) -> {
+            orderWaiters.remove(result);
+            return orderWaiters.isEmpty() ? null : orderWaiters;
+        });
+    }
+}
@@ -0,0 +1,27 @@
+-- Dijalankan setelah Hibernate (spring.jpa.defer-datasource-initialization), jadi tabel sudah ada.
+-- Semua statement harus idempotent karena skrip ini dieksekusi pada setiap startup.
+
+-- Revisi order untuk sinkronisasi delta (GET /api/orders/changes) adalah id transaksi (xid8)
+-- yang terakhir menulisnya. Order tanpa revisi, atau dengan nilai dari order_revision_seq lama
+-- yang berada di depan xid saat ini, diberi xid transaksi migrasi ini sekali saja
+UPDATE orders SET revision = pg_current_xact_id()::text::bigint
+WHERE revision IS NULL OR revision >= pg_current_xact_id()::text::bigint;
+
+DROP SEQUENCE IF EXISTS order_revision_seq;
+
+-- Digantikan idx_orders_status_created_at_id (status, created_at, id_order) yang juga
+-- menjadi batas range keyset; ddl-auto tidak pernah menghapus index lama
+DROP INDEX IF EXISTS idx_orders_status_created_at;
+
+-- Katalog hanya membaca menu aktif; index parsial ini tidak ikut membesar oleh menu yang sudah dihapus
+CREATE INDEX IF NOT EXISTS idx_menu_active ON menu (nama_menu, id_menu) WHERE is_deleted = false;
+
+-- Backfill sekali untuk order_menu lama yang dibuat sebelum nama/harga disalin saat order dibuat.
+-- Harga jual aslinya tidak tercatat, jadi harga menu saat migrasi yang dibekukan. Setelah ini
+-- pembacaan order tidak pernah perlu join ke menu lagi.
+UPDATE order_menu om
+SET nama_menu = coalesce(om.nama_menu, m.nama_menu),
+    harga_satuan = coalesce(om.harga_satuan, m.harga_menu)
+FROM menu m
+WHERE om.menu_id = m.id_menu
+  AND (om.nama_menu IS NULL OR om.harga_satuan IS NULL);
@@ -9,6 +9,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 
+import java.io.IOException;
 import java.util.UUID;
 import java.util.ArrayList;
 import java.util.List;
@@ -19,6 +20,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -30,23 +32,25 @@ import com.brewforce.pkpl.backend.dto.request.UpdateStokRequest;
 import com.brewforce.pkpl.backend.dto.response.BaseResponseDTO;
 import com.brewforce.pkpl.backend.dto.response.MenuResponse;
 import com.brewforce.pkpl.backend.model.Menu;
-import com.brewforce.pkpl.backend.security.JwtUtils;
+import com.brewforce.pkpl.backend.security.AuthenticatedUser;
+import com.brewforce.pkpl.backend.service.MenuCatalog;
 import com.brewforce.pkpl.backend.service.MenuService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class MenuControllerTest {
 
     @Mock
     private MenuService menuService;
 
-    @Mock
-    private JwtUtils jwtUtils;
-
     @Mock
     private BindingResult bindingResult;
 
     @InjectMocks
     private MenuController menuController;
 
+    private final AuthenticatedUser admin = new AuthenticatedUser("admin", "ADMIN", "Admin");
+    private final AuthenticatedUser pembeli = new AuthenticatedUser("testUser", "PEMBELI", "Test User");
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -55,7 +59,6 @@ public class MenuControllerTest {
     // 1. Broken Access Control
     @Test
     void createMenu_WithInvalidToken_ShouldReturnForbidden() {
-        String token = "Bearer validToken";
         Menu menu = new Menu();
         ResponseEntity<?> response = menuController.createMenu(menu, bindingResult, null);
 
@@ -67,9 +70,9 @@ public class MenuControllerTest {
     @Test
     void createMenu_WithMissingToken_ShouldReturnUnauthorized() {
         Menu menu = new Menu();
-        String token = null;
+        AuthenticatedUser user = null;
 
-        ResponseEntity<?> response = menuController.createMenu(menu, bindingResult, token);
+        ResponseEntity<?> response = menuController.createMenu(menu, bindingResult, user);
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
         assertEquals("Token tidak ditemukan", response.getBody());
@@ -78,12 +81,10 @@ public class MenuControllerTest {
     // 3. Injection
     @Test
     void createMenu_WithInvalidData_ShouldReturnBadRequest() {
-        String token = "Bearer validToken";
         Menu menu = new Menu();
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
         when(bindingResult.hasFieldErrors()).thenReturn(true);
 
-        ResponseEntity<?> response = menuController.createMenu(menu, bindingResult, token);
+        ResponseEntity<?> response = menuController.createMenu(menu, bindingResult, admin);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
@@ -91,58 +92,26 @@ public class MenuControllerTest {
     // 4. Insecure Design
     @Test
     void createMenu_WithInvalidPrice_ShouldReturnBadRequest() {
-        String token = "Bearer validToken";
         Menu menu = new Menu();
         menu.setHargaMenu(-1000);
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
         when(bindingResult.hasFieldErrors()).thenReturn(true);
 
-        ResponseEntity<?> response = menuController.createMenu(menu, bindingResult, token);
+        ResponseEntity<?> response = menuController.createMenu(menu, bindingResult, admin);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
-    // 5. Security Misconfiguration
-    @Test
-    void createMenu_WithInvalidToken_ShouldReturnUnauthorized() {
-        String token = "Bearer invalidToken";
-        Menu menu = new Menu();
-
-        when(jwtUtils.validateJwtToken("invalidToken")).thenReturn(false);
-
-        ResponseEntity<?> response = menuController.createMenu(menu, bindingResult, token);
-
-        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
-        assertEquals("Token tidak valid", response.getBody());
-    }
-
-    // 7. Identification and Authentication Failures
-    @Test
-    void createMenu_WithTamperedToken_ShouldReturnUnauthorized() {
-        String token = "Bearer tamperedToken";
-        Menu menu = new Menu();
-
-        when(jwtUtils.validateJwtToken("tamperedToken")).thenReturn(false);
-
-        ResponseEntity<?> response = menuController.createMenu(menu, bindingResult, token);
-
-        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
-        assertEquals("Token tidak valid", response.getBody());
-    }
-
     // 8. Software and Data Integrity Failures
     @Test
     void createMenu_WithTamperedData_ShouldReturnBadRequest() {
-        String token = "Bearer validToken";
         Menu menu = new Menu();
         menu.setIdMenu(UUID.randomUUID()); // Attempting to set ID manually
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
         when(menuService.createMenu(any())).thenThrow(
                 new ResponseStatusException(HttpStatus.BAD_REQUEST, "Menu ID should not be set manually"));
 
-        ResponseEntity<?> response = menuController.createMenu(menu, bindingResult, token);
+        ResponseEntity<?> response = menuController.createMenu(menu, bindingResult, admin);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
@@ -150,17 +119,14 @@ public class MenuControllerTest {
     // Successful Creation Test
     @Test
     void createMenu_WithValidData_ShouldReturnCreated() {
-        String token = "Bearer validToken";
         Menu menu = new Menu();
         menu.setNamaMenu("Espresso");
         menu.setHargaMenu(25000);
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getRoleFromJwtToken("validToken")).thenReturn("ADMIN");
         when(bindingResult.hasFieldErrors()).thenReturn(false);
         when(menuService.createMenu(any())).thenReturn(menu);
 
-        ResponseEntity<?> response = menuController.createMenu(menu, bindingResult, token);
+        ResponseEntity<?> response = menuController.createMenu(menu, bindingResult, admin);
 
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
         assertNotNull(response.getBody());
@@ -171,42 +137,17 @@ public class MenuControllerTest {
     // 1. Broken Access Control test for getAllMenus
     @Test
     void getAllMenus_WithoutToken_ShouldReturnUnauthorized() {
-        String token = null;
-
-        ResponseEntity<?> response = menuController.getAllMenus(token);
-
-        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
-        assertEquals("Token tidak ditemukan", response.getBody());
-    }
-
-    // 1. Broken Access Control test for getAllMenus with empty token
-    @Test
-    void getAllMenus_WithEmptyToken_ShouldReturnUnauthorized() {
-        String token = "";
+        AuthenticatedUser user = null;
 
-        ResponseEntity<?> response = menuController.getAllMenus(token);
+        ResponseEntity<?> response = menuController.getAllMenus(user, null, null);
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
         assertEquals("Token tidak ditemukan", response.getBody());
     }
 
-    // 5. Security Misconfiguration test for getAllMenus
-    @Test
-    void getAllMenus_WithInvalidToken_ShouldReturnUnauthorized() {
-        String token = "Bearer invalidToken";
-
-        when(jwtUtils.validateJwtToken("invalidToken")).thenReturn(false);
-
-        ResponseEntity<?> response = menuController.getAllMenus(token);
-
-        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
-        assertEquals("Token tidak valid", response.getBody());
-    }
-
     // Successful getAllMenus with valid token
     @Test
-    void getAllMenus_WithValidToken_ShouldReturnOk() {
-        String token = "Bearer validToken";
+    void getAllMenus_WithValidToken_ShouldReturnOk() throws Exception {
         List<Menu> menuList = new ArrayList<>();
         Menu menu = new Menu();
         menu.setIdMenu(UUID.randomUUID());
@@ -217,13 +158,68 @@ public class MenuControllerTest {
         menu.setFotoPath("/images/espresso.jpg");
         menuList.add(menu);
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(menuService.getAllMenus()).thenReturn(menuList);
+        when(menuService.getMenuCatalog()).thenReturn(catalogOf(menuList));
 
-        ResponseEntity<?> response = menuController.getAllMenus(token);
+        ResponseEntity<?> response = menuController.getAllMenus(pembeli, null, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
+        assertNotNull(response.getHeaders().getETag());
+    }
+
+    @Test
+    void getAllMenus_WithMatchingEtag_ShouldReturnNotModified() throws Exception {
+        MenuCatalog catalog = catalogOf(new ArrayList<>());
+        when(menuService.getMenuCatalog()).thenReturn(catalog);
+
+        ResponseEntity<?> response = menuController.getAllMenus(pembeli, catalog.getEtag(), null);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals(catalog.getEtag(), response.getHeaders().getETag());
+    }
+
+    @Test
+    void getAllMenus_WhenClientAcceptsGzip_ShouldReturnPrecompressedBody() throws Exception {
+        MenuCatalog catalog = catalogOf(new ArrayList<>());
+        when(menuService.getMenuCatalog()).thenReturn(catalog);
+
+        ResponseEntity<?> response = menuController.getAllMenus(pembeli, "\"stale\"", "br, gzip");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertSame(catalog.getGzipJson(), response.getBody());
+        assertEquals(catalog.getGzipEtag(), response.getHeaders().getETag());
+        assertNotEquals(catalog.getEtag(), response.getHeaders().getETag());
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeaders().getFirst(HttpHeaders.VARY));
+    }
+
+    @Test
+    void getAllMenus_WithGzipEtag_ShouldReturnNotModifiedOnlyForGzipRequests() throws Exception {
+        MenuCatalog catalog = catalogOf(new ArrayList<>());
+        when(menuService.getMenuCatalog()).thenReturn(catalog);
+
+        ResponseEntity<?> gzipResponse = menuController.getAllMenus(pembeli, catalog.getGzipEtag(), "gzip");
+        // Cache yang menyimpan body gzip tidak boleh memvalidasi ulang body identity
+        ResponseEntity<?> identityResponse = menuController.getAllMenus(pembeli, catalog.getGzipEtag(), null);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, gzipResponse.getStatusCode());
+        assertEquals(catalog.getGzipEtag(), gzipResponse.getHeaders().getETag());
+        assertEquals(HttpStatus.OK, identityResponse.getStatusCode());
+        assertSame(catalog.getJson(), identityResponse.getBody());
+        assertEquals(catalog.getEtag(), identityResponse.getHeaders().getETag());
+    }
+
+    private MenuCatalog catalogOf(List<Menu> menus) throws IOException {
+        List<MenuResponse> menuResponses = menus.stream()
+                .map(menu -> MenuResponse.builder()
+                        .idMenu(menu.getIdMenu())
+                        .namaMenu(menu.getNamaMenu())
+                        .hargaMenu(menu.getHargaMenu())
+                        .stok(menu.getStok())
+                        .build())
+                .toList();
+        return MenuCatalog.build(1L, menuResponses, new ObjectMapper());
     }
 
     // Tests for getMenuById
@@ -232,9 +228,9 @@ public class MenuControllerTest {
     @Test
     void getMenuById_WithoutToken_ShouldReturnUnauthorized() {
         UUID id = UUID.randomUUID();
-        String token = null;
+        AuthenticatedUser user = null;
 
-        ResponseEntity<?> response = menuController.getMenuById(id, token);
+        ResponseEntity<?> response = menuController.getMenuById(id, user);
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
         assertEquals("Token tidak ditemukan", response.getBody());
@@ -244,12 +240,10 @@ public class MenuControllerTest {
     @Test
     void getMenuById_WithInvalidId_ShouldThrowException() {
         UUID id = UUID.randomUUID();
-        String token = "Bearer validToken";
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
         when(menuService.getMenuById(id)).thenThrow(new NoSuchElementException("Menu not found"));
 
-        ResponseEntity<?> response = menuController.getMenuById(id, token);
+        ResponseEntity<?> response = menuController.getMenuById(id, pembeli);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertTrue(response.getBody().toString().contains("Menu not found"));
@@ -259,55 +253,23 @@ public class MenuControllerTest {
     @Test
     void getMenuById_WithServiceException_ShouldReturnInternalServerError() {
         UUID id = UUID.randomUUID();
-        String token = "Bearer validToken";
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
         when(menuService.getMenuById(id)).thenThrow(new RuntimeException("Database connection failed"));
 
-        ResponseEntity<?> response = menuController.getMenuById(id, token);
+        ResponseEntity<?> response = menuController.getMenuById(id, pembeli);
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         assertTrue(response.getBody().toString().contains("Error retrieving menu"));
     }
 
-    // 6. Vulnerable and Outdated Components - Test with malformed token
-    @Test
-    void getMenuById_WithMalformedToken_ShouldReturnUnauthorized() {
-        UUID id = UUID.randomUUID();
-        String token = "MalformedTokenWithoutBearer";
-
-        when(jwtUtils.validateJwtToken("MalformedTokenWithoutBearer")).thenReturn(false);
-
-        ResponseEntity<?> response = menuController.getMenuById(id, token);
-
-        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
-        assertEquals("Token tidak valid", response.getBody());
-    }
-
-    // 7. Identification and Authentication Failures test for getMenuById
-    @Test
-    void getMenuById_WithTamperedToken_ShouldReturnUnauthorized() {
-        UUID id = UUID.randomUUID();
-        String token = "Bearer tamperedToken";
-
-        when(jwtUtils.validateJwtToken("tamperedToken")).thenReturn(false);
-
-        ResponseEntity<?> response = menuController.getMenuById(id, token);
-
-        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
-        assertEquals("Token tidak valid", response.getBody());
-    }
-
     // 8. Software and Data Integrity Failures for getMenuById
     @Test
     void getMenuById_WithNonExistentId_ShouldReturnNotFound() {
         UUID id = UUID.randomUUID();
-        String token = "Bearer validToken";
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
         when(menuService.getMenuById(id)).thenThrow(new NoSuchElementException("Menu not found with id: " + id));
 
-        ResponseEntity<?> response = menuController.getMenuById(id, token);
+        ResponseEntity<?> response = menuController.getMenuById(id, pembeli);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertTrue(response.getBody().toString().contains("Menu not found with id"));
@@ -317,7 +279,6 @@ public class MenuControllerTest {
     @Test
     void getMenuById_WithValidIdAndToken_ShouldReturnOk() {
         UUID id = UUID.randomUUID();
-        String token = "Bearer validToken";
         Menu menu = new Menu();
         menu.setIdMenu(id);
         menu.setNamaMenu("Espresso");
@@ -326,10 +287,9 @@ public class MenuControllerTest {
         menu.setStok(10);
         menu.setFotoPath("/images/espresso.jpg");
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
         when(menuService.getMenuById(id)).thenReturn(menu);
 
-        ResponseEntity<?> response = menuController.getMenuById(id, token);
+        ResponseEntity<?> response = menuController.getMenuById(id, pembeli);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
@@ -1,19 +1,30 @@
 package com.brewforce.pkpl.backend.controller;
 
+import com.brewforce.pkpl.backend.dto.request.OrderCursor;
+import com.brewforce.pkpl.backend.dto.response.OrderChangesResponse;
+import com.brewforce.pkpl.backend.dto.response.OrderResponse;
+import com.brewforce.pkpl.backend.dto.response.OrderStatusResponse;
 import com.brewforce.pkpl.backend.model.Order;
-import com.brewforce.pkpl.backend.security.JwtUtils;
+import com.brewforce.pkpl.backend.security.AuthenticatedUser;
+import com.brewforce.pkpl.backend.service.OrderEventService;
+import com.brewforce.pkpl.backend.service.OrderIdempotencyService;
 import com.brewforce.pkpl.backend.service.OrderService;
+import com.brewforce.pkpl.backend.service.OrderStatusWaitService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.nio.file.AccessDeniedException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -23,9 +34,12 @@ import java.util.NoSuchElementException;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -37,14 +51,35 @@ public class OrderControllerTest {
     @InjectMocks
     private OrderController orderController;
 
+    private final AuthenticatedUser kasir = new AuthenticatedUser("kasir", "KASIR", "Kasir");
+    private final AuthenticatedUser pembeli = new AuthenticatedUser("testUser", "PEMBELI", "Test User");
+
+
     @Mock
-    private JwtUtils jwtUtils;
+    private OrderEventService orderEventService;
+
+    @Mock
+    private OrderStatusWaitService orderStatusWaitService;
+
+    @Mock
+    private OrderIdempotencyService orderIdempotencyService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
     }
 
+    @Test
+    void streamOrderEvents_ShouldSubscribeWithLastEventId() {
+        SseEmitter emitter = new SseEmitter();
+        when(orderEventService.subscribe("abc:42")).thenReturn(emitter);
+
+        SseEmitter result = orderController.streamOrderEvents("abc:42");
+
+        assertSame(emitter, result);
+        verify(orderEventService, times(1)).subscribe("abc:42");
+    }
+
     @Test
     void getAllOrders_WithoutStatuses_ShouldReturnAllOrders() {
         List<Order> mockOrders = new ArrayList<>();
@@ -52,13 +87,13 @@ public class OrderControllerTest {
         Order order2 = new Order();
         mockOrders.addAll(Arrays.asList(order1, order2));
 
-        when(orderService.getAllOrders()).thenReturn(mockOrders);
+        when(orderService.getOrdersPage(isNull(), any(OrderCursor.class), anyInt())).thenReturn(mockOrders);
 
-        ResponseEntity<?> response = orderController.getAllOrders(null);
+        ResponseEntity<?> response = orderController.getAllOrders(null, null, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        verify(orderService, times(1)).getAllOrders();
-        verify(orderService, never()).getOrdersByStatuses(any());
+        verify(orderService, times(1)).getOrdersPage(isNull(), eq(OrderCursor.FIRST), eq(51));
+        assertNull(response.getHeaders().getFirst(OrderController.NEXT_CURSOR_HEADER));
     }
 
     @Test
@@ -68,33 +103,131 @@ public class OrderControllerTest {
         Order order1 = new Order();
         mockOrders.add(order1);
 
-        when(orderService.getOrdersByStatuses(statuses)).thenReturn(mockOrders);
+        when(orderService.getOrdersPage(eq(statuses), any(OrderCursor.class), anyInt())).thenReturn(mockOrders);
 
-        ResponseEntity<?> response = orderController.getAllOrders(statuses);
+        ResponseEntity<?> response = orderController.getAllOrders(statuses, null, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        verify(orderService, times(1)).getOrdersByStatuses(statuses);
-        verify(orderService, never()).getAllOrders();
+        verify(orderService, times(1)).getOrdersPage(eq(statuses), any(OrderCursor.class), anyInt());
     }
 
     @Test
     void getAllOrders_WhenServiceThrowsException_ShouldReturnBadRequest() {
-        when(orderService.getAllOrders()).thenThrow(new RuntimeException("Database error"));
+        when(orderService.getOrdersPage(any(), any(OrderCursor.class), anyInt()))
+                .thenThrow(new RuntimeException("Database error"));
+
+        ResponseEntity<?> response = orderController.getAllOrders(null, null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void getAllOrders_WithMoreOrdersThanPageSize_ShouldReturnNextCursor() {
+        List<Order> mockOrders = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Order order = new Order();
+            order.setIdOrder(UUID.randomUUID());
+            order.setCreatedAt(LocalDateTime.of(2025, 1, 1, 10, 0).minusMinutes(i));
+            mockOrders.add(order);
+        }
+        when(orderService.getOrdersPage(isNull(), any(OrderCursor.class), eq(3))).thenReturn(mockOrders);
+
+        ResponseEntity<?> response = orderController.getAllOrders(null, null, 2);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, ((List<?>) response.getBody()).size());
+        String nextCursor = response.getHeaders().getFirst(OrderController.NEXT_CURSOR_HEADER);
+        assertNotNull(nextCursor);
+
+        OrderCursor decoded = OrderCursor.decode(nextCursor);
+        assertEquals(mockOrders.get(1).getIdOrder(), decoded.getIdOrder());
+        assertEquals(mockOrders.get(1).getCreatedAt(), decoded.getCreatedAt());
+    }
+
+    @Test
+    void getAllOrders_WithOversizedPage_ShouldClampToMaximum() {
+        when(orderService.getOrdersPage(any(), any(OrderCursor.class), anyInt())).thenReturn(new ArrayList<>());
+
+        orderController.getAllOrders(null, null, 10000);
 
-        ResponseEntity<?> response = orderController.getAllOrders(null);
+        verify(orderService).getOrdersPage(isNull(), any(OrderCursor.class), eq(101));
+    }
+
+    @Test
+    void getAllOrders_WithMalformedCursor_ShouldReturnBadRequest() {
+        ResponseEntity<?> response = orderController.getAllOrders(null, "bukan-cursor", null);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(orderService, never()).getOrdersPage(any(), any(), anyInt());
+    }
+
+    @Test
+    void getOrderChanges_WithMoreChangesThanPageSize_ShouldReturnHighWaterMarkAndHasMore() {
+        List<Order> changed = new ArrayList<>();
+        for (long revision = 11; revision <= 13; revision++) {
+            Order order = new Order();
+            order.setIdOrder(UUID.randomUUID());
+            order.setRevision(revision);
+            changed.add(order);
+        }
+        when(orderService.getOrdersChangedSince(10L, 3)).thenReturn(changed);
+
+        ResponseEntity<?> response = orderController.getOrderChanges(10L, 2);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        OrderChangesResponse body = (OrderChangesResponse) response.getBody();
+        assertEquals(2, body.getOrders().size());
+        assertEquals(12L, body.getRevision());
+        assertTrue(body.isHasMore());
+    }
+
+    @Test
+    void getOrderChanges_ShouldNotSplitOneTransactionAcrossPages() {
+        List<Order> changed = new ArrayList<>();
+        for (long revision : new long[] {11, 12, 12, 13}) {
+            Order order = new Order();
+            order.setIdOrder(UUID.randomUUID());
+            order.setRevision(revision);
+            changed.add(order);
+        }
+        when(orderService.getOrdersChangedSince(10L, 3)).thenReturn(changed);
+
+        ResponseEntity<?> response = orderController.getOrderChanges(10L, 2);
+
+        OrderChangesResponse body = (OrderChangesResponse) response.getBody();
+        assertEquals(3, body.getOrders().size());
+        assertEquals(12L, body.getRevision());
+        assertTrue(body.isHasMore());
+    }
+
+    @Test
+    void getOrderChanges_WithNoChanges_ShouldKeepSinceAsRevision() {
+        when(orderService.getOrdersChangedSince(eq(42L), anyInt())).thenReturn(new ArrayList<>());
+
+        ResponseEntity<?> response = orderController.getOrderChanges(42L, null);
+
+        OrderChangesResponse body = (OrderChangesResponse) response.getBody();
+        assertTrue(body.getOrders().isEmpty());
+        assertEquals(42L, body.getRevision());
+        assertFalse(body.isHasMore());
+    }
+
+    @Test
+    void getOrderChanges_WithNegativeSince_ShouldThrowBadRequest() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> orderController.getOrderChanges(-1L, null));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verify(orderService, never()).getOrdersChangedSince(anyLong(), anyInt());
     }
 
     @Test
     void getOrderById_WithValidTokenAndExistingId_ShouldReturnOrder() {
         UUID orderId = UUID.randomUUID();
         Order order = new Order();
-        when(jwtUtils.validateJwtToken(anyString())).thenReturn(true);
-        when(jwtUtils.getRoleFromJwtToken(anyString())).thenReturn("KASIR");
         when(orderService.getOrderById(orderId)).thenReturn(order);
 
-        ResponseEntity<?> response = orderController.getOrderById(orderId, "Bearer validToken");
+        ResponseEntity<?> response = orderController.getOrderById(orderId, kasir, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         verify(orderService, times(1)).getOrderById(orderId);
@@ -103,31 +236,211 @@ public class OrderControllerTest {
     @Test
     void getOrderById_WithNonExistingId_ShouldReturnNotFound() {
         UUID orderId = UUID.randomUUID();
-        String token = "Bearer validToken";
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getRoleFromJwtToken("validToken")).thenReturn("KASIR");
         when(orderService.getOrderById(orderId)).thenReturn(null);
 
-        ResponseEntity<?> response = orderController.getOrderById(orderId, token);
+        ResponseEntity<?> response = orderController.getOrderById(orderId, kasir, null);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertTrue(response.getBody().toString().contains("Order dengan ID " + orderId + " tidak ditemukan"));
     }
 
+    @Test
+    void getOrderById_WithMatchingEtag_ShouldReturnNotModifiedWithoutLoadingItems() {
+        UUID orderId = UUID.randomUUID();
+        AuthenticatedUser user = new AuthenticatedUser("buyer", "PEMBELI", "Test User");
+        when(orderService.getOrderStatus(orderId))
+                .thenReturn(new OrderStatusResponse(orderId, "buyer", "PREPARING", 7L));
+
+        ResponseEntity<?> response = orderController.getOrderById(orderId, user, "\"7\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("\"7\"", response.getHeaders().getETag());
+        verify(orderService, never()).getOrderById(any());
+    }
+
+    @Test
+    void getOrderById_WithStaleEtag_ShouldReturnOrderWithNewEtag() {
+        UUID orderId = UUID.randomUUID();
+        Order order = new Order();
+        order.setIdOrder(orderId);
+        order.setUsername("buyer");
+        order.setStatus("READY");
+        order.setRevision(8L);
+        AuthenticatedUser user = new AuthenticatedUser("buyer", "PEMBELI", "Test User");
+        when(orderService.getOrderStatus(orderId))
+                .thenReturn(new OrderStatusResponse(orderId, "buyer", "READY", 8L));
+        when(orderService.getOrderById(orderId)).thenReturn(order);
+
+        ResponseEntity<?> response = orderController.getOrderById(orderId, user, "\"7\"");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"8\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    void getOrderById_WithEtagForAnotherBuyersOrder_ShouldReturnForbidden() {
+        UUID orderId = UUID.randomUUID();
+        AuthenticatedUser user = new AuthenticatedUser("buyer", "PEMBELI", "Test User");
+        when(orderService.getOrderStatus(orderId))
+                .thenReturn(new OrderStatusResponse(orderId, "someoneElse", "READY", 8L));
+
+        ResponseEntity<?> response = orderController.getOrderById(orderId, user, "\"8\"");
+
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+    }
+
+    @Test
+    void getOrderStatus_WithoutEtag_ShouldReturnStatusOnly() {
+        UUID orderId = UUID.randomUUID();
+        OrderStatusResponse orderStatus = new OrderStatusResponse(orderId, "buyer", "READY", 12L);
+        when(orderService.getOrderStatus(orderId)).thenReturn(orderStatus);
+
+        ResponseEntity<?> response = orderController.getOrderStatus(orderId, kasir, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(orderStatus, response.getBody());
+        assertEquals("\"12\"", response.getHeaders().getETag());
+        verify(orderService, never()).getOrderById(any());
+    }
+
+    @Test
+    void getOrderStatus_WithMatchingEtag_ShouldReturnNotModified() {
+        UUID orderId = UUID.randomUUID();
+        when(orderService.getOrderStatus(orderId))
+                .thenReturn(new OrderStatusResponse(orderId, "buyer", "READY", 12L));
+
+        ResponseEntity<?> response = orderController.getOrderStatus(orderId, kasir, "\"12\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void getOrderStatus_WithNonExistingId_ShouldReturnNotFound() {
+        UUID orderId = UUID.randomUUID();
+        when(orderService.getOrderStatus(orderId)).thenReturn(null);
+
+        ResponseEntity<?> response = orderController.getOrderStatus(orderId, kasir, null);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void waitForOrderStatus_WhenRevisionAlreadyChanged_ShouldReturnImmediately() {
+        UUID orderId = UUID.randomUUID();
+        OrderStatusResponse orderStatus = new OrderStatusResponse(orderId, "buyer", "READY", 9L);
+        AuthenticatedUser user = new AuthenticatedUser("buyer", "PEMBELI", "Test User");
+        when(orderService.getOrderStatus(orderId)).thenReturn(orderStatus);
+
+        DeferredResult<OrderStatusResponse> result =
+                orderController.waitForOrderStatus(orderId, 8L, user);
+
+        assertSame(orderStatus, result.getResult());
+        verify(orderStatusWaitService, never()).waitForChange(any());
+    }
+
+    @Test
+    void waitForOrderStatus_WhenRevisionUnchanged_ShouldWaitForChange() {
+        UUID orderId = UUID.randomUUID();
+        OrderStatusResponse orderStatus = new OrderStatusResponse(orderId, "buyer", "PREPARING", 8L);
+        DeferredResult<OrderStatusResponse> pending = new DeferredResult<>();
+        AuthenticatedUser user = new AuthenticatedUser("buyer", "PEMBELI", "Test User");
+        when(orderService.getOrderStatus(orderId)).thenReturn(orderStatus);
+        when(orderStatusWaitService.waitForChange(orderStatus)).thenReturn(pending);
+
+        DeferredResult<OrderStatusResponse> result =
+                orderController.waitForOrderStatus(orderId, 8L, user);
+
+        assertSame(pending, result);
+    }
+
+    @Test
+    void waitForOrderStatus_ForAnotherBuyersOrder_ShouldThrowForbidden() {
+        UUID orderId = UUID.randomUUID();
+        AuthenticatedUser user = new AuthenticatedUser("buyer", "PEMBELI", "Test User");
+        when(orderService.getOrderStatus(orderId))
+                .thenReturn(new OrderStatusResponse(orderId, "someoneElse", "PREPARING", 8L));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> orderController.waitForOrderStatus(orderId, 8L, user));
+
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatusCode());
+        verify(orderStatusWaitService, never()).waitForChange(any());
+    }
+
     @Test
     void createOrder_WithValidPayloadAndToken_ShouldReturnCreated() {
         Map<String, Object> payload = Map.of("menuItems",
                 List.of(Map.of("menuId", UUID.randomUUID().toString(), "quantity", 1)));
         Order mockOrder = new Order();
-        when(jwtUtils.validateJwtToken(anyString())).thenReturn(true);
-        when(jwtUtils.getUsernameJwtToken(anyString())).thenReturn("testUser");
-        when(orderService.createOrder(anyList(), anyList(), anyString())).thenReturn(mockOrder);
+        when(orderService.createOrder(anyList(), anyList(), anyString(), isNull())).thenReturn(mockOrder);
+
+        ResponseEntity<?> response = orderController.createOrder(payload, pembeli, null);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        verify(orderService, times(1)).createOrder(anyList(), anyList(), eq("testUser"), isNull());
+    }
 
-        ResponseEntity<?> response = orderController.createOrder(payload, "Bearer validToken");
+    @Test
+    void createOrder_WithNewIdempotencyKey_ShouldCreateOrderWithKey() {
+        Map<String, Object> payload = Map.of("menuItems",
+                List.of(Map.of("menuId", UUID.randomUUID().toString(), "quantity", 1)));
+        when(orderIdempotencyService.findOrderId("testUser", "key-1")).thenReturn(null);
+        when(orderService.createOrder(anyList(), anyList(), eq("testUser"), eq("key-1"))).thenReturn(new Order());
+
+        ResponseEntity<?> response = orderController.createOrder(payload, pembeli, "key-1");
 
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
-        verify(orderService, times(1)).createOrder(anyList(), anyList(), eq("testUser"));
+        assertNull(response.getHeaders().getFirst(OrderController.IDEMPOTENT_REPLAYED_HEADER));
+    }
+
+    @Test
+    void createOrder_WithRepeatedIdempotencyKey_ShouldReplayWithoutCreatingOrder() {
+        UUID orderId = UUID.randomUUID();
+        Order existing = new Order();
+        existing.setIdOrder(orderId);
+        existing.setUsername("testUser");
+        Map<String, Object> payload = Map.of("menuItems",
+                List.of(Map.of("menuId", UUID.randomUUID().toString(), "quantity", 1)));
+        when(orderIdempotencyService.findOrderId("testUser", "key-1")).thenReturn(orderId);
+        when(orderService.getOrderById(orderId)).thenReturn(existing);
+
+        ResponseEntity<?> response = orderController.createOrder(payload, pembeli, "key-1");
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals("true", response.getHeaders().getFirst(OrderController.IDEMPOTENT_REPLAYED_HEADER));
+        assertEquals(orderId, ((OrderResponse) response.getBody()).getIdOrder());
+        verify(orderService, never()).createOrder(anyList(), anyList(), anyString(), any());
+    }
+
+    @Test
+    void createOrder_WhenConcurrentRetryCommittedFirst_ShouldReplayStoredOrder() {
+        UUID orderId = UUID.randomUUID();
+        Order existing = new Order();
+        existing.setIdOrder(orderId);
+        Map<String, Object> payload = Map.of("menuItems",
+                List.of(Map.of("menuId", UUID.randomUUID().toString(), "quantity", 1)));
+        when(orderIdempotencyService.findOrderId("testUser", "key-1")).thenReturn(null).thenReturn(orderId);
+        when(orderService.createOrder(anyList(), anyList(), eq("testUser"), eq("key-1")))
+                .thenThrow(new DataIntegrityViolationException("uk_order_idempotency_username_key"));
+        when(orderService.getOrderById(orderId)).thenReturn(existing);
+
+        ResponseEntity<?> response = orderController.createOrder(payload, pembeli, "key-1");
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals("true", response.getHeaders().getFirst(OrderController.IDEMPOTENT_REPLAYED_HEADER));
+    }
+
+    @Test
+    void createOrder_WithOversizedIdempotencyKey_ShouldReturnBadRequest() {
+        Map<String, Object> payload = Map.of("menuItems",
+                List.of(Map.of("menuId", UUID.randomUUID().toString(), "quantity", 1)));
+
+        ResponseEntity<?> response = orderController.createOrder(payload, pembeli, "k".repeat(256));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(orderIdempotencyService);
     }
 
     @Test
@@ -135,32 +448,19 @@ public class OrderControllerTest {
         Order updateOrder = new Order();
         updateOrder.setStatus("COMPLETED");
         Order mockOrder = new Order();
-        when(jwtUtils.validateJwtToken(anyString())).thenReturn(true);
         when(orderService.updateStatusOrder(any(Order.class))).thenReturn(mockOrder);
 
-        ResponseEntity<?> response = orderController.updateStatusOrder(updateOrder, "Bearer validToken");
+        ResponseEntity<?> response = orderController.updateStatusOrder(updateOrder, kasir);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         verify(orderService, times(1)).updateStatusOrder(updateOrder);
     }
 
     // CREATE ORDER BY ID TEST CASES
-    // 1. Broken Access Control
-    @Test
-    void createOrder_WithUnauthorizedRole_ShouldReturnForbidden() {
-        String token = "Bearer invalidToken";
-        when(jwtUtils.validateJwtToken("invalidToken")).thenReturn(false);
-
-        ResponseEntity<?> response = orderController.createOrder(new HashMap<>(), token);
-
-        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
-        assertEquals("Token tidak valid", response.getBody());
-    }
-
     // 2. Cryptographic Failures
     @Test
     void createOrder_WithMissingToken_ShouldReturnUnauthorized() {
-        ResponseEntity<?> response = orderController.createOrder(new HashMap<>(), null);
+        ResponseEntity<?> response = orderController.createOrder(new HashMap<>(), null, null);
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
         assertEquals("Token tidak valid", response.getBody());
@@ -169,13 +469,9 @@ public class OrderControllerTest {
     // 3. Injection
     @Test
     void createOrder_WithInvalidPayload_ShouldThrowBadRequest() {
-        String token = "Bearer validToken";
         Map<String, Object> invalidPayload = new HashMap<>(); // Empty payload
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getRoleFromJwtToken("validToken")).thenReturn("PEMBELI");
-
-        ResponseEntity<?> response = orderController.createOrder(invalidPayload, token);
+        ResponseEntity<?> response = orderController.createOrder(invalidPayload, pembeli, null);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertEquals("Menu items are required", response.getBody());
@@ -184,14 +480,10 @@ public class OrderControllerTest {
     // 4. Insecure Design
     @Test
     void createOrder_WithEmptyMenuItems_ShouldThrowBadRequest() {
-        String token = "Bearer validToken";
         Map<String, Object> payload = new HashMap<>();
         payload.put("menuItems", new ArrayList<>());
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getRoleFromJwtToken("validToken")).thenReturn("PEMBELI");
-
-        ResponseEntity<?> response = orderController.createOrder(payload, token);
+        ResponseEntity<?> response = orderController.createOrder(payload, pembeli, null);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertEquals("Menu items list cannot be empty", response.getBody());
@@ -200,66 +492,21 @@ public class OrderControllerTest {
     // 5. Security Misconfiguration
     @Test
     void createOrder_WithInvalidMenuItemFormat_ShouldThrowBadRequest() {
-        String token = "Bearer validToken";
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getRoleFromJwtToken("validToken")).thenReturn("PEMBELI");
-
         Map<String, Object> payload = Map.of("menuItems", List.of(Map.of("invalidField", "value")));
 
-        ResponseEntity<?> response = orderController.createOrder(payload, token);
+        ResponseEntity<?> response = orderController.createOrder(payload, pembeli, null);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertEquals("Each menu item must have menuId and quantity", response.getBody());
     }
 
-    // 7. Identification and Authentication Failures
-    @Test
-    void createOrder_WithInvalidToken_ShouldReturnUnauthorized() {
-        String token = "Bearer invalidToken";
-        when(jwtUtils.validateJwtToken("invalidToken")).thenReturn(false);
-
-        ResponseEntity<?> response = orderController.createOrder(new HashMap<>(), token);
-
-        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
-        assertEquals("Token tidak valid", response.getBody());
-    }
-
-    // 8. Software and Data Integrity Failures
-    @Test
-    void createOrder_WithTamperedToken_ShouldReturnUnauthorized() {
-        String token = "Bearer tamperedToken";
-        when(jwtUtils.validateJwtToken("tamperedToken")).thenReturn(false);
-
-        ResponseEntity<?> response = orderController.createOrder(new HashMap<>(), token);
-
-        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
-        assertEquals("Token tidak valid", response.getBody());
-    }
-
     // GET ORDER BY ID TEST CASES
-    // 1. Broken Access Control
-    @Test
-    void getOrderById_WithUnauthorizedaToken_ShouldReturnForbidden() {
-        String token = "Bearer invalidToken";
-        UUID orderId = UUID.randomUUID();
-
-        Order order = new Order();
-        order.setIdOrder(orderId);
-        order.setUsername("User");
-        when(jwtUtils.validateJwtToken("invalidToken")).thenReturn(false);
-
-        ResponseEntity<?> response = orderController.getOrderById(orderId, token);
-
-        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
-        assertEquals("Token tidak valid", response.getBody());
-    }
-
     // 2. Cryptographic Failures
     @Test
     void getOrderById_WithMissingToken_ShouldReturnUnauthorized() {
         UUID orderId = UUID.randomUUID();
 
-        ResponseEntity<?> response = orderController.getOrderById(orderId, null);
+        ResponseEntity<?> response = orderController.getOrderById(orderId, null, null);
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
         assertEquals("Token tidak valid", response.getBody());
@@ -268,14 +515,11 @@ public class OrderControllerTest {
     // 3. Injection
     @Test
     void getOrderById_WithInvalidOrderId_ShouldThrowBadRequest() {
-        String token = "Bearer validToken";
         UUID orderId = UUID.randomUUID();
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getRoleFromJwtToken("validToken")).thenReturn("KASIR");
         when(orderService.getOrderById(orderId)).thenReturn(null);
 
-        ResponseEntity<?> response = orderController.getOrderById(orderId, token);
+        ResponseEntity<?> response = orderController.getOrderById(orderId, kasir, null);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertTrue(response.getBody().toString().contains("Order dengan ID " + orderId + " tidak ditemukan"));
@@ -284,64 +528,29 @@ public class OrderControllerTest {
     // 4. Insecure Design
     @Test
     void getOrderById_WithNonExistingOrder_ShouldReturnNotFound() {
-        String token = "Bearer validToken";
         UUID orderId = UUID.randomUUID();
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getRoleFromJwtToken("validToken")).thenReturn("KASIR");
         when(orderService.getOrderById(orderId)).thenReturn(null);
 
-        ResponseEntity<?> response = orderController.getOrderById(orderId, token);
+        ResponseEntity<?> response = orderController.getOrderById(orderId, kasir, null);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertTrue(response.getBody().toString().contains("Order dengan ID " + orderId + " tidak ditemukan"));
     }
 
-    // 5. Security Misconfiguration
-    @Test
-    void getOrderById_WithInvalidToken_ShouldReturnUnauthorized() {
-        String token = "Bearer invalidToken";
-        UUID orderId = UUID.randomUUID();
-
-        when(jwtUtils.validateJwtToken("invalidToken")).thenReturn(false);
-
-        ResponseEntity<?> response = orderController.getOrderById(orderId, token);
-
-        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
-        assertEquals("Token tidak valid", response.getBody());
-    }
-
-    // 7. Identification and Authentication Failures
-    @Test
-    void getOrderById_WithTamperedToken_ShouldReturnUnauthorized() {
-        String token = "Bearer tamperedToken";
-        UUID orderId = UUID.randomUUID();
-
-        when(jwtUtils.validateJwtToken("tamperedToken")).thenReturn(false);
-
-        ResponseEntity<?> response = orderController.getOrderById(orderId, token);
-
-        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
-        assertEquals("Token tidak valid", response.getBody());
-    }
-
     // 8. Software and Data Integrity Failures
     @Test
     void getOrderById_WithTamperedOrderData_ShouldThrowException() {
         // Setup
         UUID orderId = UUID.randomUUID();
-        String token = "Bearer validToken";
         Order order = new Order();
         order.setIdOrder(orderId);
         order.setUsername("differentUser");
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getRoleFromJwtToken("validToken")).thenReturn("PEMBELI");
-        when(jwtUtils.getUsernameJwtToken("validToken")).thenReturn("testUser");
         when(orderService.getOrderById(orderId)).thenReturn(order);
 
         // Execute
-        ResponseEntity<?> response = orderController.getOrderById(orderId, token);
+        ResponseEntity<?> response = orderController.getOrderById(orderId, pembeli, null);
 
         // Verify
         assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
@@ -352,8 +561,6 @@ public class OrderControllerTest {
     // 1. Broken Access Control
     @Test
     void updateStatusOrder_WithUnauthorizedRole_ShouldReturnForbidden() {
-        String token = "Bearer invalidToken";
-        when(jwtUtils.validateJwtToken("invalidToken")).thenReturn(false);
         Order updateOrder = new Order();
         ResponseEntity<?> response = orderController.updateStatusOrder(updateOrder, null);
 
@@ -374,90 +581,51 @@ public class OrderControllerTest {
     // 3. Injection
     @Test
     void updateStatusOrder_WithInvalidStatus_ShouldReturnBadRequest() {
-        String token = "Bearer validToken";
         Order updateOrder = new Order();
         updateOrder.setStatus("INVALID_STATUS"); // Invalid status injection attempt
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getRoleFromJwtToken("validToken")).thenReturn("KASIR");
         when(orderService.updateStatusOrder(updateOrder))
                 .thenThrow(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid status"));
 
-        ResponseEntity<?> response = orderController.updateStatusOrder(updateOrder, token);
+        ResponseEntity<?> response = orderController.updateStatusOrder(updateOrder, kasir);
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
     // 4. Insecure Design
     @Test
     void updateStatusOrder_WithCancelledStatus_ShouldReturnBadRequest() {
-        String token = "Bearer validToken";
         Order updateOrder = new Order();
         updateOrder.setStatus("CANCELLED");
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getRoleFromJwtToken("validToken")).thenReturn("KASIR");
-
-        ResponseEntity<?> response = orderController.updateStatusOrder(updateOrder, token);
+        ResponseEntity<?> response = orderController.updateStatusOrder(updateOrder, kasir);
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
-    // 5. Security Misconfiguration
-    @Test
-    void updateStatusOrder_WithInvalidToken_ShouldReturnUnauthorized() {
-        String token = "Bearer invalidToken";
-        Order updateOrder = new Order();
-
-        when(jwtUtils.validateJwtToken("invalidToken")).thenReturn(false);
-
-        ResponseEntity<?> response = orderController.updateStatusOrder(updateOrder, token);
-        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
-        assertEquals("Token tidak valid", response.getBody());
-    }
-
-    // 7. Identification and Authentication Failures
-    @Test
-    void updateStatusOrder_WithTamperedToken_ShouldReturnUnauthorized() {
-        String token = "Bearer tamperedToken";
-        Order updateOrder = new Order();
-
-        when(jwtUtils.validateJwtToken("tamperedToken")).thenReturn(false);
-
-        ResponseEntity<?> response = orderController.updateStatusOrder(updateOrder, token);
-        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
-        assertEquals("Token tidak valid", response.getBody());
-    }
-
     // 8. Software and Data Integrity Failures
     @Test
     void updateStatusOrder_WithTamperedOrderData_ShouldReturnBadRequest() {
-        String token = "Bearer validToken";
         Order updateOrder = new Order();
         updateOrder.setIdOrder(UUID.randomUUID());
         updateOrder.setStatus("COMPLETED");
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getRoleFromJwtToken("validToken")).thenReturn("KASIR");
         when(orderService.updateStatusOrder(updateOrder))
                 .thenThrow(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Order data integrity check failed"));
 
-        ResponseEntity<?> response = orderController.updateStatusOrder(updateOrder, token);
+        ResponseEntity<?> response = orderController.updateStatusOrder(updateOrder, kasir);
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
     // 10. Server-Side Request Forgery
     @Test
     void updateStatusOrder_WithNonExistingOrder_ShouldReturnNotFound() {
-        String token = "Bearer validToken";
         Order updateOrder = new Order();
         updateOrder.setIdOrder(UUID.randomUUID());
         updateOrder.setStatus("COMPLETED");
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getRoleFromJwtToken("validToken")).thenReturn("KASIR");
         when(orderService.updateStatusOrder(updateOrder))
                 .thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found"));
 
-        ResponseEntity<?> response = orderController.updateStatusOrder(updateOrder, token);
+        ResponseEntity<?> response = orderController.updateStatusOrder(updateOrder, kasir);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
@@ -466,14 +634,12 @@ public class OrderControllerTest {
     // 1. Broken Access Control - Unauthorized Access Attempt
     @Test
     void getOrdersByUsername_WithUserAccessingOthersData_ShouldBeRestricted() {
-        String token = "Bearer validToken";
         String authenticatedUser = "user1";
         String attemptedAccessUsername = "user2";
         List<Order> orders = new ArrayList<>();
 
         // Simulate authenticated user
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getUsernameJwtToken("validToken")).thenReturn(authenticatedUser);
+        AuthenticatedUser user = new AuthenticatedUser(authenticatedUser, "PEMBELI", "Test User");
 
         // Set up orders that belong to a different user
         Order order = new Order();
@@ -481,15 +647,15 @@ public class OrderControllerTest {
         orders.add(order);
 
         // Service should return only orders matching the authenticated user
-        when(orderService.getOrdersByUsername(authenticatedUser)).thenReturn(new ArrayList<>());
-        when(orderService.getOrdersByUsername(attemptedAccessUsername)).thenReturn(orders);
+        when(orderService.getOrdersPageByUsername(eq(authenticatedUser), any(OrderCursor.class), anyInt())).thenReturn(new ArrayList<>());
+        when(orderService.getOrdersPageByUsername(eq(attemptedAccessUsername), any(OrderCursor.class), anyInt())).thenReturn(orders);
 
-        ResponseEntity<?> response = orderController.getOrdersByUsername(token);
+        ResponseEntity<?> response = orderController.getOrdersByUsername(user, null, null);
 
         // Verify that service was called with authenticated username, not the attempted
         // access username
-        verify(orderService).getOrdersByUsername(authenticatedUser);
-        verify(orderService, never()).getOrdersByUsername(attemptedAccessUsername);
+        verify(orderService).getOrdersPageByUsername(eq(authenticatedUser), any(OrderCursor.class), anyInt());
+        verify(orderService, never()).getOrdersPageByUsername(eq(attemptedAccessUsername), any(OrderCursor.class), anyInt());
 
         // Should return OK with empty list (since authenticatedUser has no orders)
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -498,11 +664,8 @@ public class OrderControllerTest {
     // 1. Broken Access Control - Another user's account access attempt
     @Test
     void getOrdersByUsername_WithAdminRoleChangingToUserRole_ShouldBeVerified() {
-        String token = "Bearer validToken";
-
-        // Mock token validation and role check
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getUsernameJwtToken("validToken")).thenReturn("admin");
+        // Principal dari token yang sudah diverifikasi filter
+        AuthenticatedUser user = new AuthenticatedUser("admin", "PEMBELI", "Test User");
 
         // Simulate admin's orders
         List<Order> adminOrders = new ArrayList<>();
@@ -510,23 +673,23 @@ public class OrderControllerTest {
         adminOrder.setUsername("admin");
         adminOrders.add(adminOrder);
 
-        when(orderService.getOrdersByUsername("admin")).thenReturn(adminOrders);
+        when(orderService.getOrdersPageByUsername(eq("admin"), any(OrderCursor.class), anyInt())).thenReturn(adminOrders);
 
-        ResponseEntity<?> response = orderController.getOrdersByUsername(token);
+        ResponseEntity<?> response = orderController.getOrdersByUsername(user, null, null);
 
         // Verify that only admin's own orders are returned
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        verify(orderService).getOrdersByUsername("admin");
+        verify(orderService).getOrdersPageByUsername(eq("admin"), any(OrderCursor.class), anyInt());
 
         // Additional verification to confirm admin can't access other users' data
-        verify(orderService, never()).getOrdersByUsername("user1");
-        verify(orderService, never()).getOrdersByUsername("user2");
+        verify(orderService, never()).getOrdersPageByUsername(eq("user1"), any(OrderCursor.class), anyInt());
+        verify(orderService, never()).getOrdersPageByUsername(eq("user2"), any(OrderCursor.class), anyInt());
     }
 
     // 2. Cryptographic Failures
     @Test
     void getOrdersByUsername_WithNullToken_ShouldReturnUnauthorized() {
-        ResponseEntity<?> response = orderController.getOrdersByUsername(null);
+        ResponseEntity<?> response = orderController.getOrdersByUsername(null, null, null);
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
         assertEquals("Token tidak ditemukan", response.getBody());
     }
@@ -534,82 +697,43 @@ public class OrderControllerTest {
     // 3. Injection
     @Test
     void getOrdersByUsername_WithSQLInjectionAttempt_ShouldHandleSecurely() {
-        String token = "Bearer validToken";
         String maliciousUsername = "admin'; DROP TABLE users; --";
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getUsernameJwtToken("validToken")).thenReturn(maliciousUsername);
-        when(orderService.getOrdersByUsername(maliciousUsername)).thenReturn(new ArrayList<>());
+        AuthenticatedUser user = new AuthenticatedUser(maliciousUsername, "PEMBELI", "Test User");
+        when(orderService.getOrdersPageByUsername(eq(maliciousUsername), any(OrderCursor.class), anyInt())).thenReturn(new ArrayList<>());
 
-        ResponseEntity<?> response = orderController.getOrdersByUsername(token);
-        verify(orderService).getOrdersByUsername(maliciousUsername);
+        ResponseEntity<?> response = orderController.getOrdersByUsername(user, null, null);
+        verify(orderService).getOrdersPageByUsername(eq(maliciousUsername), any(OrderCursor.class), anyInt());
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
     // 4. Insecure Design
     @Test
     void getOrdersByUsername_WhenServiceThrowsException_ShouldHandleGracefully() {
-        String token = "Bearer validToken";
         String username = "testUser";
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getUsernameJwtToken("validToken")).thenReturn(username);
-        when(orderService.getOrdersByUsername(username)).thenThrow(new RuntimeException("Database error"));
+        AuthenticatedUser user = new AuthenticatedUser(username, "PEMBELI", "Test User");
+        when(orderService.getOrdersPageByUsername(eq(username), any(OrderCursor.class), anyInt())).thenThrow(new RuntimeException("Database error"));
 
         try {
-            orderController.getOrdersByUsername(token);
+            orderController.getOrdersByUsername(user, null, null);
             fail("Should have thrown an exception");
         } catch (Exception e) {
             assertTrue(e instanceof RuntimeException);
         }
     }
 
-    // 5. Security Misconfiguration
-    @Test
-    void getOrdersByUsername_WithInvalidToken_ShouldReturnUnauthorized() {
-        String token = "Bearer invalidToken";
-        when(jwtUtils.validateJwtToken("invalidToken")).thenReturn(false);
-
-        ResponseEntity<?> response = orderController.getOrdersByUsername(token);
-        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
-        assertEquals("Token tidak valid", response.getBody());
-    }
-
-    // 6. Vulnerable and Outdated Components
-    @Test
-    void getOrdersByUsername_WithMalformedToken_ShouldHandleProperly() {
-        String token = "MalformedTokenWithoutBearer";
-        when(jwtUtils.validateJwtToken(token)).thenReturn(false);
-
-        ResponseEntity<?> response = orderController.getOrdersByUsername(token);
-        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
-        assertEquals("Token tidak valid", response.getBody());
-    }
-
-    // 7. Identification and Authentication Failures
-    @Test
-    void getOrdersByUsername_WithTamperedToken_ShouldReturnUnauthorized() {
-        String token = "Bearer tamperedToken";
-        when(jwtUtils.validateJwtToken("tamperedToken")).thenReturn(false);
-
-        ResponseEntity<?> response = orderController.getOrdersByUsername(token);
-        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
-        assertEquals("Token tidak valid", response.getBody());
-    }
-
     // 8. Software and Data Integrity Failures
     @Test
     void getOrdersByUsername_WithModifiedUsername_ShouldOnlyReturnAuthorizedData() {
-        String token = "Bearer validToken";
         String username = "legitimateUser";
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getUsernameJwtToken("validToken")).thenReturn(username);
-        when(orderService.getOrdersByUsername(username)).thenReturn(new ArrayList<>());
+        AuthenticatedUser user = new AuthenticatedUser(username, "PEMBELI", "Test User");
+        when(orderService.getOrdersPageByUsername(eq(username), any(OrderCursor.class), anyInt())).thenReturn(new ArrayList<>());
 
-        ResponseEntity<?> response = orderController.getOrdersByUsername(token);
+        ResponseEntity<?> response = orderController.getOrdersByUsername(user, null, null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        verify(orderService).getOrdersByUsername(username);
+        verify(orderService).getOrdersPageByUsername(eq(username), any(OrderCursor.class), anyInt());
         assertNotNull(response.getBody());
     }
 
@@ -618,7 +742,6 @@ public class OrderControllerTest {
     // 1. Broken Access Control
     @Test
     void cancelOrder_WithUserTryingToCancelOthersOrder_ShouldReturnForbidden() {
-        String token = "Bearer validToken";
         UUID orderId = UUID.randomUUID();
         Order updateOrder = new Order();
         updateOrder.setIdOrder(orderId);
@@ -628,29 +751,14 @@ public class OrderControllerTest {
         existingOrder.setIdOrder(orderId);
         existingOrder.setUsername("anotherUser"); // Different from authenticated user
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getUsernameJwtToken("validToken")).thenReturn("testUser");
         when(orderService.getOrderById(orderId)).thenReturn(existingOrder);
 
-        ResponseEntity<?> response = orderController.cancelOrder(updateOrder, token);
+        ResponseEntity<?> response = orderController.cancelOrder(updateOrder, pembeli);
 
         assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
         verify(orderService, never()).updateStatusOrder(any(Order.class));
     }
 
-    // 1. Broken Access Control - Missing Authorization
-    @Test
-    void cancelOrder_WithEmptyToken_ShouldReturnUnauthorized() {
-        Order updateOrder = new Order();
-        updateOrder.setStatus("CANCELLED");
-
-        ResponseEntity<?> response = orderController.cancelOrder(updateOrder, "");
-
-        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
-        assertEquals("Token tidak ditemukan", response.getBody());
-        verify(orderService, never()).updateStatusOrder(any(Order.class));
-    }
-
     // 2. Cryptographic Failures
     @Test
     void cancelOrder_WithNullToken_ShouldReturnUnauthorized() {
@@ -667,7 +775,6 @@ public class OrderControllerTest {
     // 3. Injection
     @Test
     void cancelOrder_WithInvalidStatus_ShouldReturnBadRequest() {
-        String token = "Bearer validToken";
         UUID orderId = UUID.randomUUID();
         Order updateOrder = new Order();
         updateOrder.setIdOrder(orderId);
@@ -677,11 +784,9 @@ public class OrderControllerTest {
         existingOrder.setIdOrder(orderId);
         existingOrder.setUsername("testUser");
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getUsernameJwtToken("validToken")).thenReturn("testUser");
         when(orderService.getOrderById(orderId)).thenReturn(existingOrder);
 
-        ResponseEntity<?> response = orderController.cancelOrder(updateOrder, token);
+        ResponseEntity<?> response = orderController.cancelOrder(updateOrder, pembeli);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         verify(orderService, never()).updateStatusOrder(any(Order.class));
@@ -690,75 +795,23 @@ public class OrderControllerTest {
     // 4. Insecure Design
     @Test
     void cancelOrder_WithNonexistentOrder_ShouldReturnNotFound() {
-        String token = "Bearer validToken";
         UUID orderId = UUID.randomUUID();
         Order updateOrder = new Order();
         updateOrder.setIdOrder(orderId);
         updateOrder.setStatus("CANCELLED");
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getUsernameJwtToken("validToken")).thenReturn("testUser");
         when(orderService.getOrderById(orderId)).thenReturn(null);
 
-        ResponseEntity<?> response = orderController.cancelOrder(updateOrder, token);
+        ResponseEntity<?> response = orderController.cancelOrder(updateOrder, pembeli);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertTrue(response.getBody().toString().contains("tidak ditemukan"));
         verify(orderService, never()).updateStatusOrder(any(Order.class));
     }
 
-    // 5. Security Misconfiguration
-    @Test
-    void cancelOrder_WithInvalidToken_ShouldReturnUnauthorized() {
-        String token = "Bearer invalidToken";
-        Order updateOrder = new Order();
-        updateOrder.setStatus("CANCELLED");
-
-        when(jwtUtils.validateJwtToken("invalidToken")).thenReturn(false);
-
-        ResponseEntity<?> response = orderController.cancelOrder(updateOrder, token);
-
-        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
-        assertEquals("Token tidak valid", response.getBody());
-        verify(orderService, never()).updateStatusOrder(any(Order.class));
-    }
-
-    // 6. Vulnerable and Outdated Components
-    @Test
-    void cancelOrder_WithMalformedToken_ShouldHandleGracefully() {
-        String token = "MalformedTokenNoBearer";
-        Order updateOrder = new Order();
-        updateOrder.setStatus("CANCELLED");
-
-        when(jwtUtils.validateJwtToken("MalformedTokenNoBearer")).thenReturn(false);
-
-        ResponseEntity<?> response = orderController.cancelOrder(updateOrder, token);
-
-        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
-        assertEquals("Token tidak valid", response.getBody());
-        verify(orderService, never()).updateStatusOrder(any(Order.class));
-    }
-
-    // 7. Identification and Authentication Failures
-    @Test
-    void cancelOrder_WithTamperedToken_ShouldReturnUnauthorized() {
-        String token = "Bearer tamperedToken";
-        Order updateOrder = new Order();
-        updateOrder.setStatus("CANCELLED");
-
-        when(jwtUtils.validateJwtToken("tamperedToken")).thenReturn(false);
-
-        ResponseEntity<?> response = orderController.cancelOrder(updateOrder, token);
-
-        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
-        assertEquals("Token tidak valid", response.getBody());
-        verify(orderService, never()).updateStatusOrder(any(Order.class));
-    }
-
     // 8. Software and Data Integrity Failures
     @Test
     void cancelOrder_WithServiceError_ShouldHandleException() {
-        String token = "Bearer validToken";
         UUID orderId = UUID.randomUUID();
         Order updateOrder = new Order();
         updateOrder.setIdOrder(orderId);
@@ -768,13 +821,11 @@ public class OrderControllerTest {
         existingOrder.setIdOrder(orderId);
         existingOrder.setUsername("testUser");
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getUsernameJwtToken("validToken")).thenReturn("testUser");
         when(orderService.getOrderById(orderId)).thenReturn(existingOrder);
         when(orderService.updateStatusOrder(updateOrder))
                 .thenThrow(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot cancel this order"));
 
-        ResponseEntity<?> response = orderController.cancelOrder(updateOrder, token);
+        ResponseEntity<?> response = orderController.cancelOrder(updateOrder, pembeli);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertEquals("Cannot cancel this order", response.getBody());
@@ -786,7 +837,6 @@ public class OrderControllerTest {
     // 10. Server-Side Request Forgery
     @Test
     void cancelOrder_WithServiceFailure_ShouldHandleInternalServerError() {
-        String token = "Bearer validToken";
         UUID orderId = UUID.randomUUID();
         Order updateOrder = new Order();
         updateOrder.setIdOrder(orderId);
@@ -796,13 +846,11 @@ public class OrderControllerTest {
         existingOrder.setIdOrder(orderId);
         existingOrder.setUsername("testUser");
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getUsernameJwtToken("validToken")).thenReturn("testUser");
         when(orderService.getOrderById(orderId)).thenReturn(existingOrder);
         when(orderService.updateStatusOrder(updateOrder))
                 .thenThrow(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Database connection error"));
 
-        ResponseEntity<?> response = orderController.cancelOrder(updateOrder, token);
+        ResponseEntity<?> response = orderController.cancelOrder(updateOrder, pembeli);
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
         assertTrue(response.getBody().toString().contains("unexpected error"));
@@ -811,7 +859,6 @@ public class OrderControllerTest {
     // Positive Test Case - Successful Cancellation
     @Test
     void cancelOrder_WithValidRequest_ShouldCancelSuccessfully() {
-        String token = "Bearer validToken";
         UUID orderId = UUID.randomUUID();
         Order updateOrder = new Order();
         updateOrder.setIdOrder(orderId);
@@ -827,12 +874,10 @@ public class OrderControllerTest {
         cancelledOrder.setUsername("testUser");
         cancelledOrder.setStatus("CANCELLED");
 
-        when(jwtUtils.validateJwtToken("validToken")).thenReturn(true);
-        when(jwtUtils.getUsernameJwtToken("validToken")).thenReturn("testUser");
         when(orderService.getOrderById(orderId)).thenReturn(existingOrder);
         when(orderService.updateStatusOrder(updateOrder)).thenReturn(cancelledOrder);
 
-        ResponseEntity<?> response = orderController.cancelOrder(updateOrder, token);
+        ResponseEntity<?> response = orderController.cancelOrder(updateOrder, pembeli);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         verify(orderService).updateStatusOrder(updateOrder);
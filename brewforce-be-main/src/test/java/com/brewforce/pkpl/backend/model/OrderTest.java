@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 class OrderTest {
@@ -32,7 +33,26 @@ class OrderTest {
         // Assertions
         assertEquals(1, order.getOrderMenuItems().size());
         assertEquals(40000L, order.getTotalHarga());
-        verify(menu, times(1)).setStok(8); // Stok berkurang
+        verify(menu, never()).setStok(anyInt()); // Stok dikurangi oleh MenuRepository.decrementStok
+    }
+
+    @Test
+    void addMenuItem_ShouldSnapshotMenuNameAndPrice() {
+        Menu menu = new Menu();
+        menu.setIdMenu(UUID.randomUUID());
+        menu.setNamaMenu("Es Kopi Susu");
+        menu.setHargaMenu(18000);
+        menu.setStok(10);
+
+        order.addMenuItem(menu, 1);
+
+        // Perubahan harga dan nama menu setelahnya tidak boleh memengaruhi order
+        menu.setNamaMenu("Es Kopi Susu Gula Aren");
+        menu.setHargaMenu(22000);
+
+        OrderMenu item = order.getOrderMenuItems().get(0);
+        assertEquals("Es Kopi Susu", item.getNamaMenu());
+        assertEquals(18000, item.getHargaSatuan());
     }
 
     @Test
@@ -0,0 +1,49 @@
+package com.brewforce.pkpl.backend.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7GeneratorTest {
+
+    @Test
+    void nextUuid_ShouldSetVersion7AndRfcVariant() {
+        UUID uuid = UuidV7Generator.nextUuid();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    void nextUuid_ShouldEmbedCurrentTimeInMilliseconds() {
+        long before = System.currentTimeMillis();
+        UUID uuid = UuidV7Generator.nextUuid();
+        long after = System.currentTimeMillis();
+
+        long timestamp = uuid.getMostSignificantBits() >>> 16;
+        // Counter yang habis (mis. setelah test loop) bisa meminjam beberapa milidetik ke depan
+        assertTrue(timestamp >= before && timestamp <= after + 1000);
+    }
+
+    @Test
+    void nextUuid_InTightLoop_ShouldBeStrictlyIncreasingAndUnique() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            ids.add(UuidV7Generator.nextUuid());
+        }
+
+        Set<UUID> unique = new HashSet<>(ids);
+        assertEquals(ids.size(), unique.size());
+        for (int i = 1; i < ids.size(); i++) {
+            // Bandingkan tanpa tanda seperti urutan uuid di Postgres
+            assertTrue(Long.compareUnsigned(ids.get(i - 1).getMostSignificantBits(),
+                    ids.get(i).getMostSignificantBits()) < 0, "id ke-" + i + " tidak urut");
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.brewforce.pkpl.backend.repository;
+
+import com.brewforce.pkpl.backend.model.UuidV7Generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Membandingkan insert primary key UUID v4 (acak) dan v7 (urut waktu) pada tabel berbentuk
+ * orders. Tidak ikut ./gradlew test; jalankan lewat ./gradlew benchmark dengan BENCHMARK_DB_URL,
+ * BENCHMARK_DB_USERNAME dan BENCHMARK_DB_PASSWORD menunjuk ke database Postgres khusus benchmark.
+ */
+class OrderIdInsertBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+    // Throughput diukur ulang di akhir, saat index sudah jauh lebih besar dari shared_buffers
+    private static final int TAIL_ROWS = 100_000;
+
+    @Test
+    void compareRandomAndTimeOrderedPrimaryKeys() throws Exception {
+        String url = System.getenv("BENCHMARK_DB_URL");
+        assumeTrue(url != null, "BENCHMARK_DB_URL tidak di-set, benchmark dilewati");
+        int rows = Integer.parseInt(System.getProperty("benchmark.rows", "2000000"));
+
+        Properties properties = new Properties();
+        properties.setProperty("user", System.getenv().getOrDefault("BENCHMARK_DB_USERNAME", "postgres"));
+        properties.setProperty("password", System.getenv().getOrDefault("BENCHMARK_DB_PASSWORD", ""));
+        properties.setProperty("reWriteBatchedInserts", "true");
+
+        try (Connection connection = DriverManager.getConnection(url, properties)) {
+            connection.setAutoCommit(false);
+            Result v4 = run(connection, "bench_orders_uuid_v4", rows, UUID::randomUUID);
+            Result v7 = run(connection, "bench_orders_uuid_v7", rows, UuidV7Generator::nextUuid);
+
+            System.out.printf("%-8s %12s %16s %16s %14s%n",
+                    "key", "rows", "rows/s (all)", "rows/s (tail)", "pkey size MB");
+            v4.print("uuid v4", rows);
+            v7.print("uuid v7", rows);
+        }
+    }
+
+    private Result run(Connection connection, String table, int rows, Supplier<UUID> ids) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists " + table);
+            statement.execute("create table " + table + " (" +
+                    "id_order uuid primary key, " +
+                    "status varchar(255) not null, " +
+                    "total_harga bigint not null, " +
+                    "username varchar(255) not null, " +
+                    "created_at timestamp(6) not null)");
+        }
+        connection.commit();
+
+        String sql = "insert into " + table + " (id_order, status, total_harga, username, created_at) " +
+                "values (?, ?, ?, ?, ?)";
+        long start = System.nanoTime();
+        long tailStart = start;
+        try (PreparedStatement insert = connection.prepareStatement(sql)) {
+            for (int i = 0; i < rows; i++) {
+                if (i == rows - TAIL_ROWS) {
+                    tailStart = System.nanoTime();
+                }
+                insert.setObject(1, ids.get());
+                insert.setString(2, "AWAITING_PAYMENT");
+                insert.setLong(3, 25000L);
+                insert.setString(4, "buyer" + (i % 5000));
+                insert.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now()));
+                insert.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+        long end = System.nanoTime();
+
+        long indexBytes;
+        try (Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery(
+                        "select pg_relation_size('" + table + "_pkey')")) {
+            resultSet.next();
+            indexBytes = resultSet.getLong(1);
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table " + table);
+        }
+        connection.commit();
+
+        return new Result(end - start, end - tailStart, indexBytes);
+    }
+
+    private record Result(long totalNanos, long tailNanos, long indexBytes) {
+        void print(String label, int rows) {
+            int tailRows = Math.min(rows, TAIL_ROWS);
+            System.out.printf("%-8s %12d %16.0f %16.0f %14.1f%n", label, rows,
+                    rows / (totalNanos / 1e9), tailRows / (tailNanos / 1e9), indexBytes / (1024.0 * 1024.0));
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.brewforce.pkpl.backend.repository;
+
+import com.brewforce.pkpl.backend.dto.request.OrderCursor;
+import com.brewforce.pkpl.backend.model.Menu;
+import com.brewforce.pkpl.backend.model.Order;
+import com.brewforce.pkpl.backend.model.OrderMenu;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import javax.sql.DataSource;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mengunci jumlah statement jalur keyset yang dipakai endpoint daftar order: satu query id
+ * halaman dan satu query order + item, berapa pun jumlah order di halaman itu. Plan halaman
+ * yang dalam juga diperiksa: index harus di-seek langsung ke cursor, bukan discan dari awal.
+ * Delta /changes diperiksa terhadap transaksi yang masih berjalan, dan detail order harus tetap
+ * satu lookup primary key ketika tabel membesar.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.brewforce.pkpl.backend.repository.RecordingStatementInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+public class OrderRepositoryTest {
+
+    private static final int ORDER_COUNT = 30;
+    private static final int PAGE_SIZE = 20;
+    private static final int DEEP_ORDER_COUNT = 20_000;
+    private static final int DEEP_PAGE_OFFSET = 19_000;
+    private static final int SMALL_TABLE_ORDERS = 1_000;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    private Menu menu;
+
+    private UUID firstOrderId;
+
+    @BeforeEach
+    void setUp() {
+        menu = new Menu();
+        menu.setNamaMenu("Kopi Susu");
+        menu.setDeskripsiMenu("Kopi susu gula aren");
+        menu.setHargaMenu(18000);
+        menu.setStok(100);
+        menu.setFotoPath("kopi-susu.png");
+        entityManager.persist(menu);
+
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            Order order = new Order();
+            order.setUsername(i % 2 == 0 ? "pembeli1" : "pembeli2");
+            order.setStatus(i % 3 == 0 ? "READY" : "PREPARING");
+            for (int item = 0; item < 2; item++) {
+                OrderMenu orderMenu = new OrderMenu();
+                orderMenu.setOrder(order);
+                orderMenu.setMenu(menu);
+                orderMenu.setQuantity(item + 1);
+                orderMenu.setNamaMenu(menu.getNamaMenu());
+                orderMenu.setHargaSatuan(menu.getHargaMenu());
+                order.getOrderMenuItems().add(orderMenu);
+            }
+            entityManager.persist(order);
+            if (firstOrderId == null) {
+                firstOrderId = order.getIdOrder();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void testAllOrdersPage_ShouldUseTwoStatements() {
+        assertPageUsesTwoStatements(() -> orderRepository.findPageIds(
+                OrderCursor.FIRST.getCreatedAt(), OrderCursor.FIRST.getIdOrder(), PageRequest.of(0, PAGE_SIZE)),
+                PAGE_SIZE);
+    }
+
+    @Test
+    public void testStatusPage_ShouldUseTwoStatements() {
+        assertPageUsesTwoStatements(() -> orderRepository.findPageIdsByStatusIn(List.of("PREPARING"),
+                OrderCursor.FIRST.getCreatedAt(), OrderCursor.FIRST.getIdOrder(), PageRequest.of(0, PAGE_SIZE)),
+                PAGE_SIZE);
+    }
+
+    @Test
+    public void testUsernamePage_ShouldUseTwoStatements() {
+        assertPageUsesTwoStatements(() -> orderRepository.findPageIdsByUsername("pembeli1",
+                OrderCursor.FIRST.getCreatedAt(), OrderCursor.FIRST.getIdOrder(), PageRequest.of(0, PAGE_SIZE)),
+                ORDER_COUNT / 2);
+    }
+
+    @Test
+    public void testDeepPages_ShouldSeekToCursorInsteadOfFilteringNewerRows() {
+        insertOrders(DEEP_ORDER_COUNT);
+        Object[] cursor = (Object[]) entityManager.getEntityManager().createNativeQuery(
+                "select created_at, id_order from orders order by created_at desc, id_order desc "
+                        + "offset " + DEEP_PAGE_OFFSET + " limit 1")
+                .getSingleResult();
+        LocalDateTime createdAt = cursor[0] instanceof Timestamp timestamp
+                ? timestamp.toLocalDateTime() : (LocalDateTime) cursor[0];
+        UUID idOrder = (UUID) cursor[1];
+
+        RecordingStatementInspector.clear();
+        orderRepository.findPageIds(createdAt, idOrder, PageRequest.of(0, PAGE_SIZE));
+        assertSeeksIndex(RecordingStatementInspector.last(), List.of(createdAt, idOrder));
+
+        RecordingStatementInspector.clear();
+        orderRepository.findPageIdsByStatusIn(List.of("PREPARING"), createdAt, idOrder, PageRequest.of(0, PAGE_SIZE));
+        assertSeeksIndex(RecordingStatementInspector.last(), List.of("PREPARING", createdAt, idOrder));
+
+        RecordingStatementInspector.clear();
+        orderRepository.findPageIdsByUsername("pembeli1", createdAt, idOrder, PageRequest.of(0, PAGE_SIZE));
+        assertSeeksIndex(RecordingStatementInspector.last(), List.of("pembeli1", createdAt, idOrder));
+    }
+
+    @Test
+    public void testFindByIdWithItems_ShouldStayOneKeyedStatementAsTableGrows() {
+        insertOrders(SMALL_TABLE_ORDERS);
+        assertFindByIdWithItemsUsesPrimaryKey();
+
+        insertOrders(DEEP_ORDER_COUNT - SMALL_TABLE_ORDERS);
+        assertFindByIdWithItemsUsesPrimaryKey();
+    }
+
+    private void assertFindByIdWithItemsUsesPrimaryKey() {
+        entityManager.clear();
+        statistics.clear();
+        RecordingStatementInspector.clear();
+
+        Order order = orderRepository.findByIdWithItems(firstOrderId).orElseThrow();
+        long items = order.getOrderMenuItems().stream()
+                .filter(item -> item.getNamaMenu() != null && item.getHargaSatuan() != null)
+                .count();
+
+        assertThat(items).isEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        JsonNode plan = explain(RecordingStatementInspector.last(), List.of(firstOrderId));
+        List<JsonNode> scans = new ArrayList<>();
+        collectScans(plan, scans);
+        assertThat(scans).as(plan.toPrettyString())
+                .noneSatisfy(scan -> assertThat(scan.get("Node Type").asText()).isEqualTo("Seq Scan"))
+                .anySatisfy(scan -> assertThat(scan.path("Index Name").asText()).isEqualTo("orders_pkey"));
+        for (JsonNode scan : scans) {
+            assertThat(scan.path("Rows Removed by Filter").asLong(0)).as(plan.toPrettyString()).isZero();
+            assertThat(scan.get("Actual Rows").asLong()).as(plan.toPrettyString()).isLessThanOrEqualTo(items);
+        }
+    }
+
+    @Test
+    public void testChangedSince_ShouldHoldBackCommitsNewerThanAnInFlightTransaction() throws SQLException {
+        // Transaksi test ini sudah menulis order di setUp, jadi xid-nya masih berjalan di sini
+        Long inFlightRevision = orderRepository.nextRevision();
+        assertThat(orderRepository.nextRevision()).isEqualTo(inFlightRevision);
+
+        UUID settled = UUID.randomUUID();
+        UUID newerCommit = UUID.randomUUID();
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(true);
+            statement.execute(insertCommittedOrder(settled, "5"));
+            statement.execute(insertCommittedOrder(newerCommit, "pg_current_xact_id()::text::bigint"));
+            try {
+                // Dibaca dari transaksi lain, seperti request /changes yang sesungguhnya
+                TransactionTemplate reader = new TransactionTemplate(transactionManager);
+                reader.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+                List<UUID> changed = reader.execute(status -> orderRepository.findIdsChangedSince(0L, 10));
+
+                // newerCommit sudah commit tetapi revisinya di atas transaksi yang masih berjalan;
+                // jika dikembalikan sekarang, revisi inFlightRevision akan terlewat oleh client
+                assertThat(changed).containsExactly(settled);
+            } finally {
+                statement.execute("delete from orders where id_order in ('" + settled + "', '" + newerCommit + "')");
+            }
+        }
+    }
+
+    private String insertCommittedOrder(UUID idOrder, String revision) {
+        return "insert into orders (id_order, status, total_harga, username, created_at, revision) "
+                + "values ('" + idOrder + "', 'READY', 18000, 'pembeli1', now(), " + revision + ")";
+    }
+
+    private void insertOrders(int count) {
+        Session session = entityManager.getEntityManager().unwrap(Session.class);
+        session.doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("insert into orders (id_order, status, total_harga, username, created_at, revision) "
+                        + "select gen_random_uuid(), "
+                        + "case when i % 2 = 0 then 'PREPARING' else 'READY' end, 18000, "
+                        + "'pembeli' || (i % 10), now() - make_interval(secs => i), i "
+                        + "from generate_series(1, " + count + ") i");
+                statement.execute("insert into order_menu (id, order_id, menu_id, quantity, nama_menu, harga_satuan) "
+                        + "select gen_random_uuid(), o.id_order, '" + menu.getIdMenu() + "', q, 'Kopi Susu', 18000 "
+                        + "from orders o cross join generate_series(1, 2) q "
+                        + "where not exists (select 1 from order_menu om where om.order_id = o.id_order)");
+                statement.execute("analyze orders");
+                statement.execute("analyze order_menu");
+            }
+        });
+    }
+
+    /**
+     * EXPLAIN ANALYZE atas SQL yang dihasilkan Hibernate. Scan index harus berhenti setelah satu
+     * halaman; jika predikat keyset hanya menjadi filter, ribuan baris yang lebih baru ikut dibaca
+     * lalu dibuang.
+     */
+    private void assertSeeksIndex(String sql, List<Object> params) {
+        int placeholders = (int) sql.chars().filter(c -> c == '?').count();
+        List<Object> values = new ArrayList<>(params);
+        // Sisa parameter adalah offset/limit dari Pageable
+        if (placeholders - params.size() == 2) {
+            values.add(0);
+        }
+        values.add(PAGE_SIZE);
+        JsonNode plan = explain(sql, values);
+
+        List<JsonNode> scans = new ArrayList<>();
+        collectScans(plan, scans);
+        assertThat(scans).as(plan.toPrettyString()).isNotEmpty()
+                .allSatisfy(scan -> assertThat(scan.get("Node Type").asText()).contains("Index"));
+        for (JsonNode scan : scans) {
+            assertThat(scan.path("Rows Removed by Filter").asLong(0)).as(plan.toPrettyString()).isZero();
+            assertThat(scan.get("Actual Rows").asLong()).as(plan.toPrettyString()).isLessThanOrEqualTo(PAGE_SIZE);
+        }
+    }
+
+    private JsonNode explain(String sql, List<Object> values) {
+        Session session = entityManager.getEntityManager().unwrap(Session.class);
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement explain = connection.prepareStatement("explain (analyze, format json) " + sql)) {
+                for (int i = 0; i < values.size(); i++) {
+                    explain.setObject(i + 1, values.get(i));
+                }
+                try (ResultSet resultSet = explain.executeQuery()) {
+                    resultSet.next();
+                    return new ObjectMapper().readTree(resultSet.getString(1)).get(0).get("Plan");
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+    }
+
+    private void collectScans(JsonNode node, List<JsonNode> scans) {
+        if (node.get("Node Type").asText().endsWith("Scan")) {
+            scans.add(node);
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectScans(child, scans);
+        }
+    }
+
+    private void assertPageUsesTwoStatements(Supplier<List<UUID>> pageIds, int expectedOrders) {
+        List<Order> orders = orderRepository.findAllWithItemsByIdOrderIn(pageIds.get());
+
+        // Baca semua field yang dipakai OrderResponse; tidak boleh memicu query tambahan
+        long items = orders.stream()
+                .flatMap(order -> order.getOrderMenuItems().stream())
+                .filter(item -> item.getNamaMenu() != null && item.getHargaSatuan() != null)
+                .count();
+
+        assertThat(orders).hasSize(expectedOrders);
+        assertThat(items).isEqualTo(expectedOrders * 2L);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+}
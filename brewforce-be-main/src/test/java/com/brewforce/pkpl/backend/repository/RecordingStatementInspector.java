@@ -0,0 +1,28 @@
+package com.brewforce.pkpl.backend.repository;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Menyimpan SQL yang dihasilkan Hibernate agar test repository bisa menjalankan EXPLAIN
+ * atas query yang benar-benar dikirim, bukan salinan manualnya.
+ */
+public class RecordingStatementInspector implements StatementInspector {
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    static void clear() {
+        STATEMENTS.clear();
+    }
+
+    static String last() {
+        return STATEMENTS.get(STATEMENTS.size() - 1);
+    }
+}
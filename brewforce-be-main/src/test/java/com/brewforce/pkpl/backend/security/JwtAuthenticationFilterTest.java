@@ -0,0 +1,88 @@
+package com.brewforce.pkpl.backend.security;
+
+import jakarta.servlet.FilterChain;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Mock
+    private FilterChain filterChain;
+
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        filter = new JwtAuthenticationFilter(verifiedTokenCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_WithValidToken_ShouldPublishTypedPrincipal() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders/my-orders");
+        request.addHeader("Authorization", "Bearer validToken");
+        when(verifiedTokenCache.verify("validToken"))
+                .thenReturn(new JwtClaims("buyer", "PEMBELI", "Buyer", Instant.now().plusSeconds(3600)));
+
+        filter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        AuthenticatedUser user = assertInstanceOf(AuthenticatedUser.class, authentication.getPrincipal());
+        assertEquals("buyer", user.getUsername());
+        assertEquals("PEMBELI", user.getRole());
+        assertEquals("Buyer", user.getName());
+        assertEquals("buyer", authentication.getName());
+        assertTrue(authentication.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals("ROLE_PEMBELI")));
+        verify(filterChain).doFilter(any(), any());
+    }
+
+    @Test
+    void doFilter_WithInvalidToken_ShouldReturnUnauthorized() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders/my-orders");
+        request.addHeader("Authorization", "Bearer tamperedToken");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        when(verifiedTokenCache.verify("tamperedToken")).thenReturn(null);
+
+        filter.doFilter(request, response, filterChain);
+
+        assertEquals(401, response.getStatus());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(filterChain, never()).doFilter(any(), any());
+    }
+
+    @Test
+    void doFilter_WithoutBearerPrefix_ShouldReturnUnauthorized() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders/my-orders");
+        request.addHeader("Authorization", "MalformedTokenWithoutBearer");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, filterChain);
+
+        assertEquals(401, response.getStatus());
+        verifyNoInteractions(verifiedTokenCache);
+        verify(filterChain, never()).doFilter(any(), any());
+    }
+}
@@ -0,0 +1,73 @@
+package com.brewforce.pkpl.backend.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilsTest {
+
+    private static final String SECRET = "brewforce-test-secret-key-that-is-long-enough-for-hs256";
+
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        jwtUtils.init();
+    }
+
+    private String token(String secret, long expiresInMs) {
+        return Jwts.builder()
+                .subject("kasir1")
+                .claim("role", "KASIR")
+                .claim("name", "Kasir Satu")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + expiresInMs))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes()))
+                .compact();
+    }
+
+    @Test
+    void parseClaims_WithValidToken_ShouldReturnAllClaimsFromOneVerification() {
+        String token = token(SECRET, 60_000);
+
+        JwtClaims claims = jwtUtils.parseClaims(token);
+
+        assertNotNull(claims);
+        assertEquals("kasir1", claims.getUsername());
+        assertEquals("KASIR", claims.getRole());
+        assertEquals("Kasir Satu", claims.getName());
+        assertNotNull(claims.getExpiresAt());
+    }
+
+    @Test
+    void parseClaims_WithExpiredToken_ShouldReturnNull() {
+        assertNull(jwtUtils.parseClaims(token(SECRET, -60_000)));
+    }
+
+    @Test
+    void parseClaims_WithForeignSignature_ShouldReturnNull() {
+        String token = token("another-secret-key-that-is-also-long-enough-for-hs256", 60_000);
+
+        assertNull(jwtUtils.parseClaims(token));
+        assertFalse(jwtUtils.validateJwtToken(token));
+    }
+
+    @Test
+    void legacyAccessors_ShouldMatchParsedClaims() {
+        String token = token(SECRET, 60_000);
+
+        assertTrue(jwtUtils.validateJwtToken(token));
+        assertEquals("kasir1", jwtUtils.getUsernameJwtToken(token));
+        assertEquals("KASIR", jwtUtils.getRoleFromJwtToken(token));
+        assertEquals("Kasir Satu", jwtUtils.getNameFromJwtToken(token));
+    }
+}
@@ -0,0 +1,55 @@
+package com.brewforce.pkpl.backend.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class SecurityConfigTest {
+
+    private static final String FRONTEND_URL = "https://kelompok-7-brewforce-fe.pkpl.cs.ui.ac.id";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @SpyBean
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Test
+    void preflight_ShouldBeAnsweredWithoutTokenVerification() throws Exception {
+        mockMvc.perform(options("/api/orders/my-orders")
+                        .header(HttpHeaders.ORIGIN, FRONTEND_URL)
+                        .header(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, "GET")
+                        .header(HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS, "authorization"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, FRONTEND_URL));
+
+        verify(verifiedTokenCache, never()).verify(anyString());
+    }
+
+    @Test
+    void prometheusScrape_OnPublicPort_ShouldRequireToken() throws Exception {
+        // Actuator hanya ada di management port; lewat port publik diperlakukan seperti path lain
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void apiRequest_WithoutToken_ShouldStillBeRejected() throws Exception {
+        mockMvc.perform(get("/api/orders/my-orders"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.message", is("Header Authorization tidak ditemukan atau tidak valid")));
+    }
+}
@@ -0,0 +1,146 @@
+package com.brewforce.pkpl.backend.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class VerifiedTokenCacheTest {
+
+    private static final Instant NOW = Instant.parse("2025-05-01T08:00:00Z");
+
+    @Mock
+    private JwtUtils jwtUtils;
+
+    @Mock
+    private Clock clock;
+
+    private SimpleMeterRegistry meterRegistry;
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        when(clock.instant()).thenReturn(NOW);
+        verifiedTokenCache = new VerifiedTokenCache(jwtUtils, meterRegistry, clock);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("brewforce.jwt.cache").tag("result", result).counter().count();
+    }
+
+    @Test
+    void verify_WithRepeatedToken_ShouldVerifySignatureOnlyOnce() {
+        JwtClaims claims = new JwtClaims("kasir1", "KASIR", "Kasir", NOW.plusSeconds(3600));
+        when(jwtUtils.parseClaims("token-a")).thenReturn(claims);
+
+        assertSame(claims, verifiedTokenCache.verify("token-a"));
+        assertSame(claims, verifiedTokenCache.verify("token-a"));
+        assertSame(claims, verifiedTokenCache.verify("token-a"));
+
+        verify(jwtUtils, times(1)).parseClaims("token-a");
+        assertEquals(2.0, count("hit"));
+        assertEquals(1.0, count("miss"));
+    }
+
+    @Test
+    void verify_AfterTokenExpiry_ShouldNotServeCachedClaims() {
+        JwtClaims claims = new JwtClaims("kasir1", "KASIR", "Kasir", NOW.plusSeconds(60));
+        when(jwtUtils.parseClaims("token-a")).thenReturn(claims).thenReturn(null);
+        verifiedTokenCache.verify("token-a");
+
+        when(clock.instant()).thenReturn(NOW.plusSeconds(61));
+
+        assertNull(verifiedTokenCache.verify("token-a"));
+        verify(jwtUtils, times(2)).parseClaims("token-a");
+        assertEquals(0, verifiedTokenCache.size());
+    }
+
+    @Test
+    void verify_WithInvalidToken_ShouldNotCacheIt() {
+        when(jwtUtils.parseClaims("bad-token")).thenReturn(null);
+
+        assertNull(verifiedTokenCache.verify("bad-token"));
+        assertNull(verifiedTokenCache.verify("bad-token"));
+
+        verify(jwtUtils, times(2)).parseClaims("bad-token");
+        assertEquals(0, verifiedTokenCache.size());
+    }
+
+    @Test
+    void verify_WhenCacheIsFullOfLiveTokens_ShouldStillVerifyWithoutGrowing() {
+        when(jwtUtils.parseClaims(anyString())).thenAnswer(invocation ->
+                new JwtClaims(invocation.getArgument(0), "PEMBELI", "Pembeli", NOW.plusSeconds(3600)));
+        for (int i = 0; i < VerifiedTokenCache.MAX_ENTRIES; i++) {
+            verifiedTokenCache.verify("token-" + i);
+        }
+
+        JwtClaims claims = verifiedTokenCache.verify("one-more-token");
+
+        assertNotNull(claims);
+        assertEquals(VerifiedTokenCache.MAX_ENTRIES, verifiedTokenCache.size());
+    }
+
+    @Test
+    void verify_WhenCacheIsFull_ShouldKeepRecentlyUsedTokenAndEvictAnother() {
+        when(jwtUtils.parseClaims(anyString())).thenAnswer(invocation ->
+                new JwtClaims(invocation.getArgument(0), "PEMBELI", "Pembeli", NOW.plusSeconds(3600)));
+        for (int i = 0; i < VerifiedTokenCache.MAX_ENTRIES; i++) {
+            verifiedTokenCache.verify("token-" + i);
+        }
+        // token-0 baru dipakai lagi sehingga dilewati sekali oleh jarum eviction
+        verifiedTokenCache.verify("token-0");
+
+        verifiedTokenCache.verify("one-more-token");
+        verifiedTokenCache.verify("token-0");
+        verifiedTokenCache.verify("one-more-token");
+
+        verify(jwtUtils, times(1)).parseClaims("token-0");
+        verify(jwtUtils, times(1)).parseClaims("one-more-token");
+        assertEquals(VerifiedTokenCache.MAX_ENTRIES, verifiedTokenCache.size());
+    }
+
+    @Test
+    void verify_FromManyThreadsOnFullCache_ShouldStayBoundedAndServeHits() throws Exception {
+        when(jwtUtils.parseClaims(anyString())).thenAnswer(invocation ->
+                new JwtClaims(invocation.getArgument(0), "PEMBELI", "Pembeli", NOW.plusSeconds(3600)));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t * VerifiedTokenCache.MAX_ENTRIES;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < VerifiedTokenCache.MAX_ENTRIES / 2; i++) {
+                        assertNotNull(verifiedTokenCache.verify("token-" + (offset + i)));
+                        assertNotNull(verifiedTokenCache.verify("shared-token"));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(verifiedTokenCache.size() <= VerifiedTokenCache.MAX_ENTRIES + threads);
+        // Token yang terus dipakai hampir selalu dilayani dari cache
+        assertTrue(count("hit") >= threads * (VerifiedTokenCache.MAX_ENTRIES / 2) - threads * 10);
+    }
+}
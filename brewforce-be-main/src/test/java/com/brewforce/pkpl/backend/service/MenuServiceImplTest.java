@@ -0,0 +1,156 @@
+package com.brewforce.pkpl.backend.service;
+
+import com.brewforce.pkpl.backend.dto.request.UpdateStokRequest;
+import com.brewforce.pkpl.backend.model.Menu;
+import com.brewforce.pkpl.backend.repository.MenuRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MenuServiceImplTest {
+
+    @Mock
+    private MenuRepository menuRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private MenuServiceImpl menuService;
+
+    private Menu espresso;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        espresso = new Menu();
+        espresso.setIdMenu(UUID.randomUUID());
+        espresso.setNamaMenu("Espresso");
+        espresso.setDeskripsiMenu("Strong coffee");
+        espresso.setHargaMenu(25000);
+        espresso.setStok(10);
+        espresso.setFotoPath("/images/espresso.jpg");
+        when(menuRepository.findAllActive()).thenReturn(List.of(espresso));
+    }
+
+    @Test
+    void getMenuCatalog_WithoutChanges_ShouldQueryDatabaseOnce() {
+        MenuCatalog first = menuService.getMenuCatalog();
+        MenuCatalog second = menuService.getMenuCatalog();
+
+        assertSame(first, second);
+        verify(menuRepository, times(1)).findAllActive();
+    }
+
+    @Test
+    void getMenuCatalog_ShouldPrecomputeJsonGzipAndEtag() throws Exception {
+        MenuCatalog catalog = menuService.getMenuCatalog();
+
+        String json = new String(catalog.getJson());
+        assertTrue(json.contains("\"namaMenu\":\"Espresso\""));
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(catalog.getGzipJson()))) {
+            assertArrayEquals(catalog.getJson(), gzip.readAllBytes());
+        }
+        assertTrue(catalog.getEtag().startsWith("\"") && catalog.getEtag().endsWith("\""));
+    }
+
+    @Test
+    void getMenuCatalog_ShouldFilterDeletedMenusInQuery() {
+        MenuCatalog catalog = menuService.getMenuCatalog();
+
+        assertEquals(1, catalog.getMenus().size());
+        verify(menuRepository).findAllActive();
+        verify(menuRepository, never()).findAll();
+    }
+
+    @Test
+    void getMenuById_WithDeletedMenu_ShouldThrowNotFound() {
+        UUID deletedId = UUID.randomUUID();
+        when(menuRepository.findActiveById(deletedId)).thenReturn(Optional.empty());
+
+        assertThrows(NoSuchElementException.class, () -> menuService.getMenuById(deletedId));
+        verify(menuRepository, never()).findById(any());
+    }
+
+    @Test
+    void updateStok_ShouldRebuildCatalogWithNewEtag() throws Exception {
+        MenuCatalog before = menuService.getMenuCatalog();
+        when(menuRepository.findActiveById(espresso.getIdMenu())).thenReturn(Optional.of(espresso));
+        UpdateStokRequest request = new UpdateStokRequest();
+        request.setStok(3);
+
+        menuService.updateStok(espresso.getIdMenu(), request);
+        MenuCatalog after = menuService.getMenuCatalog();
+
+        assertNotSame(before, after);
+        assertNotEquals(before.getEtag(), after.getEtag());
+        assertEquals(3, after.getMenus().get(0).getStok());
+        verify(menuRepository, times(2)).findAllActive();
+    }
+
+    @Test
+    void getMenuCatalog_AfterTtlExpires_ShouldRebuildFromDatabase() {
+        MutableClock clock = new MutableClock();
+        ReflectionTestUtils.setField(menuService, "clock", clock);
+        ReflectionTestUtils.setField(menuService, "catalogTtl", Duration.ofSeconds(5));
+
+        menuService.getMenuCatalog();
+        clock.advance(Duration.ofSeconds(4));
+        menuService.getMenuCatalog();
+        verify(menuRepository, times(1)).findAllActive();
+
+        // Perubahan dari replika lain (atau stok yang berkurang karena order) terlihat setelah TTL
+        espresso.setStok(7);
+        clock.advance(Duration.ofSeconds(2));
+        MenuCatalog refreshed = menuService.getMenuCatalog();
+
+        verify(menuRepository, times(2)).findAllActive();
+        assertEquals(7, refreshed.getMenus().get(0).getStok());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
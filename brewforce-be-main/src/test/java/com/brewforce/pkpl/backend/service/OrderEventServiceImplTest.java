@@ -0,0 +1,114 @@
+package com.brewforce.pkpl.backend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderEventServiceImplTest {
+
+    // Sama dengan SENDER_THREADS: cukup untuk memacetkan seluruh pool sender tanpa watchdog
+    private static final int STALLED_SUBSCRIBERS = 4;
+
+    private final Queue<SseEmitter> nextEmitters = new ConcurrentLinkedQueue<>();
+    private final CountDownLatch unblockStalled = new CountDownLatch(1);
+    private final OrderEventServiceImpl orderEventService = new OrderEventServiceImpl() {
+        @Override
+        SseEmitter createEmitter() {
+            return nextEmitters.poll();
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        unblockStalled.countDown();
+        orderEventService.shutdown();
+    }
+
+    @Test
+    void stalledSubscribers_ShouldBeEvictedWhileOthersKeepReceivingEvents() throws Exception {
+        ReflectionTestUtils.setField(orderEventService, "sendTimeout", Duration.ofMillis(100));
+
+        List<StalledEmitter> stalled = new ArrayList<>();
+        for (int i = 0; i < STALLED_SUBSCRIBERS; i++) {
+            StalledEmitter emitter = new StalledEmitter();
+            stalled.add(emitter);
+            nextEmitters.add(emitter);
+            orderEventService.subscribe(null);
+        }
+        orderEventService.onOrderChanged(event("PREPARING"));
+        for (StalledEmitter emitter : stalled) {
+            assertTrue(emitter.sendStarted.await(5, TimeUnit.SECONDS));
+        }
+
+        // Semua thread sender kini tertahan di write yang tidak pernah selesai
+        RecordingEmitter healthy = new RecordingEmitter();
+        nextEmitters.add(healthy);
+        orderEventService.subscribe(null);
+        orderEventService.onOrderChanged(event("READY"));
+
+        Thread.sleep(200);
+        orderEventService.evictStalledSubscribers();
+
+        assertNotNull(healthy.sent.poll(5, TimeUnit.SECONDS));
+        orderEventService.onOrderChanged(event("COMPLETED"));
+        assertNotNull(healthy.sent.poll(5, TimeUnit.SECONDS));
+
+        for (StalledEmitter emitter : stalled) {
+            assertEquals(1, emitter.sendAttempts.get());
+        }
+    }
+
+    private OrderChangedEvent event(String status) {
+        return new OrderChangedEvent(OrderChangedEvent.ORDER_STATUS_CHANGED, UUID.randomUUID(), "buyer1",
+                status, 1L, LocalDateTime.now());
+    }
+
+    // Client yang tidak pernah membaca socket-nya; write-nya juga tidak bereaksi pada interrupt
+    private final class StalledEmitter extends SseEmitter {
+        private final CountDownLatch sendStarted = new CountDownLatch(1);
+        private final AtomicInteger sendAttempts = new AtomicInteger();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            sendAttempts.incrementAndGet();
+            sendStarted.countDown();
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    unblockStalled.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+        private final BlockingQueue<SseEventBuilder> sent = new LinkedBlockingQueue<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            sent.add(builder);
+        }
+    }
+}
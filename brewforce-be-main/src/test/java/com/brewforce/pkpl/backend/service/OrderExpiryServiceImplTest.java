@@ -0,0 +1,108 @@
+package com.brewforce.pkpl.backend.service;
+
+import com.brewforce.pkpl.backend.dto.response.OrderStatusResponse;
+import com.brewforce.pkpl.backend.repository.MenuRepository;
+import com.brewforce.pkpl.backend.repository.OrderRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OrderExpiryServiceImplTest {
+
+    private static final Instant NOW = Instant.parse("2025-05-01T08:00:00Z");
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2025, 5, 1, 7, 45);
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private MenuRepository menuRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OrderExpiryServiceImpl orderExpiryService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        orderExpiryService = new OrderExpiryServiceImpl(orderRepository, menuRepository, eventPublisher,
+                new TransactionTemplate(transactionManager), Clock.fixed(NOW, ZoneOffset.UTC));
+        ReflectionTestUtils.setField(orderExpiryService, "paymentWindow", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(orderExpiryService, "batchSize", 2);
+    }
+
+    @Test
+    void expireStaleOrders_WithNothingExpired_ShouldNotTouchStock() {
+        when(orderRepository.lockExpiredAwaitingPayment(CUTOFF, 2)).thenReturn(List.of());
+
+        assertEquals(0, orderExpiryService.expireStaleOrders());
+
+        verifyNoInteractions(menuRepository, eventPublisher);
+        verify(orderRepository, never()).cancelWithNewRevision(any());
+    }
+
+    @Test
+    void expireStaleOrders_ShouldRestoreStockAndCancelEachBatchWithFixedStatements() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(orderRepository.findStatusesByIdOrderIn(List.of(first, second))).thenReturn(List.of(
+                new OrderStatusResponse(first, "buyer1", "CANCELLED", 10L),
+                new OrderStatusResponse(second, "buyer2", "CANCELLED", 11L)));
+        when(orderRepository.lockExpiredAwaitingPayment(CUTOFF, 2))
+                .thenReturn(List.of(first, second))
+                .thenReturn(List.of());
+
+        assertEquals(2, orderExpiryService.expireStaleOrders());
+
+        InOrder inOrder = inOrder(menuRepository, orderRepository);
+        inOrder.verify(menuRepository).restoreStokForOrders(List.of(first, second));
+        inOrder.verify(orderRepository).cancelWithNewRevision(List.of(first, second));
+
+        ArgumentCaptor<OrderChangedEvent> eventCaptor = ArgumentCaptor.forClass(OrderChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(eventCaptor.capture());
+        assertEquals(OrderChangedEvent.ORDER_STATUS_CHANGED, eventCaptor.getAllValues().get(0).getType());
+        assertEquals("CANCELLED", eventCaptor.getAllValues().get(0).getStatus());
+        assertEquals(11L, eventCaptor.getAllValues().get(1).getRevision());
+    }
+
+    @Test
+    void expireStaleOrders_WithPartialLastBatch_ShouldStopWithoutExtraQuery() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        when(orderRepository.lockExpiredAwaitingPayment(eq(CUTOFF), eq(2)))
+                .thenReturn(List.of(first, second))
+                .thenReturn(List.of(third));
+        when(orderRepository.findStatusesByIdOrderIn(any())).thenReturn(List.of());
+
+        assertEquals(3, orderExpiryService.expireStaleOrders());
+
+        verify(orderRepository, times(2)).lockExpiredAwaitingPayment(CUTOFF, 2);
+        verify(transactionManager, times(2)).commit(any());
+    }
+}
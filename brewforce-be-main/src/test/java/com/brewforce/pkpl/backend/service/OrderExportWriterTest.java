@@ -0,0 +1,91 @@
+package com.brewforce.pkpl.backend.service;
+
+import com.brewforce.pkpl.backend.dto.request.OrderExportFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderExportWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void writeRow_WithCsvFormat_ShouldWriteOneLinePerItemAndEscapeFields() throws Exception {
+        StringWriter out = new StringWriter();
+        OrderExportWriter writer = new OrderExportWriter(out, OrderExportFormat.CSV, objectMapper);
+        UUID orderId = UUID.randomUUID();
+        UUID menuId = UUID.randomUUID();
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 31, 9, 15);
+
+        writer.start();
+        writer.writeRow(orderId, createdAt, "budi", "COMPLETED", 30000L, menuId, "Kopi \"Susu\", Gula Aren", 2, 15000);
+        writer.finish();
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("id_order,created_at"));
+        assertEquals(orderId + "," + createdAt + ",budi,COMPLETED,30000," + menuId
+                + ",\"Kopi \"\"Susu\"\", Gula Aren\",2,15000", lines[1]);
+    }
+
+    @Test
+    void writeRow_WithCsvFormat_ShouldNeutraliseFormulaLikeText() throws Exception {
+        StringWriter out = new StringWriter();
+        OrderExportWriter writer = new OrderExportWriter(out, OrderExportFormat.CSV, objectMapper);
+        UUID orderId = UUID.randomUUID();
+        UUID menuId = UUID.randomUUID();
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 31, 9, 15);
+
+        writer.start();
+        writer.writeRow(orderId, createdAt, "=HYPERLINK(\"http://evil\")", "COMPLETED", 30000L, menuId,
+                "@SUM(A1:A9)", 2, 15000);
+        writer.writeRow(orderId, createdAt, "+62812", "COMPLETED", 30000L, menuId, "-Kopi", 1, 15000);
+        writer.writeRow(orderId, createdAt, "\tbudi", "COMPLETED", 30000L, menuId, "\rTeh", 1, 15000);
+        writer.finish();
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(4, lines.length);
+        assertEquals(orderId + "," + createdAt + ",\"'=HYPERLINK(\"\"http://evil\"\")\",COMPLETED,30000,"
+                + menuId + ",'@SUM(A1:A9),2,15000", lines[1]);
+        assertEquals(orderId + "," + createdAt + ",'+62812,COMPLETED,30000," + menuId + ",'-Kopi,1,15000",
+                lines[2]);
+        assertEquals(orderId + "," + createdAt + ",'\tbudi,COMPLETED,30000," + menuId + ",\"'\rTeh\",1,15000",
+                lines[3]);
+    }
+
+    @Test
+    void writeRow_WithJsonLinesFormat_ShouldGroupConsecutiveRowsPerOrder() throws Exception {
+        StringWriter out = new StringWriter();
+        OrderExportWriter writer = new OrderExportWriter(out, OrderExportFormat.JSONL, objectMapper);
+        UUID firstOrder = UUID.randomUUID();
+        UUID secondOrder = UUID.randomUUID();
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 31, 9, 15);
+
+        writer.start();
+        writer.writeRow(firstOrder, createdAt, "budi", "COMPLETED", 45000L, UUID.randomUUID(), "Kopi Susu", 2, 15000);
+        writer.writeRow(firstOrder, createdAt, "budi", "COMPLETED", 45000L, UUID.randomUUID(), "Teh", 1, 15000);
+        // Order tanpa item (left join) tetap diekspor
+        writer.writeRow(secondOrder, createdAt, "sari", "CANCELLED", 0L, null, null, null, null);
+        writer.finish();
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(2, lines.length);
+
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(firstOrder.toString(), first.get("idOrder").asText());
+        assertEquals(2, first.get("items").size());
+        assertEquals("Teh", first.get("items").get(1).get("menuName").asText());
+
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertEquals(secondOrder.toString(), second.get("idOrder").asText());
+        assertEquals(0, second.get("items").size());
+    }
+}
@@ -0,0 +1,109 @@
+package com.brewforce.pkpl.backend.service;
+
+import com.brewforce.pkpl.backend.model.OrderIdempotencyKey;
+import com.brewforce.pkpl.backend.repository.OrderIdempotencyKeyRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OrderIdempotencyServiceImplTest {
+
+    private static final Instant NOW = Instant.parse("2025-05-01T08:00:00Z");
+
+    @Mock
+    private OrderIdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private Clock clock;
+
+    private OrderIdempotencyServiceImpl idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(clock.instant()).thenReturn(NOW);
+        when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+        idempotencyService = new OrderIdempotencyServiceImpl(idempotencyKeyRepository, clock);
+    }
+
+    @Test
+    void record_ShouldPersistKeyAndServeLaterLookupsFromMemory() {
+        UUID orderId = UUID.randomUUID();
+
+        idempotencyService.record("buyer", "key-1", orderId);
+
+        ArgumentCaptor<OrderIdempotencyKey> captor = ArgumentCaptor.forClass(OrderIdempotencyKey.class);
+        verify(idempotencyKeyRepository).saveAndFlush(captor.capture());
+        assertEquals("buyer", captor.getValue().getUsername());
+        assertEquals("key-1", captor.getValue().getIdempotencyKey());
+        assertEquals(orderId, captor.getValue().getIdOrder());
+
+        assertEquals(orderId, idempotencyService.findOrderId("buyer", "key-1"));
+        verify(idempotencyKeyRepository, never()).findByUsernameAndIdempotencyKey(any(), any());
+    }
+
+    @Test
+    void findOrderId_ShouldBeScopedPerUser() {
+        idempotencyService.record("buyer", "key-1", UUID.randomUUID());
+        when(idempotencyKeyRepository.findByUsernameAndIdempotencyKey("other", "key-1")).thenReturn(Optional.empty());
+
+        assertNull(idempotencyService.findOrderId("other", "key-1"));
+    }
+
+    @Test
+    void findOrderId_AfterRestart_ShouldLoadFromDatabaseOnce() {
+        UUID orderId = UUID.randomUUID();
+        OrderIdempotencyKey stored = new OrderIdempotencyKey();
+        stored.setIdOrder(orderId);
+        when(idempotencyKeyRepository.findByUsernameAndIdempotencyKey("buyer", "key-1")).thenReturn(Optional.of(stored));
+
+        assertEquals(orderId, idempotencyService.findOrderId("buyer", "key-1"));
+        assertEquals(orderId, idempotencyService.findOrderId("buyer", "key-1"));
+
+        verify(idempotencyKeyRepository, times(1)).findByUsernameAndIdempotencyKey("buyer", "key-1");
+    }
+
+    @Test
+    void purgeExpired_ShouldDropOldEntriesFromMemoryAndDatabase() {
+        idempotencyService.record("buyer", "key-1", UUID.randomUUID());
+        when(clock.instant()).thenReturn(NOW.plus(OrderIdempotencyServiceImpl.RETENTION).plusSeconds(1));
+
+        idempotencyService.purgeExpired();
+
+        assertEquals(0, idempotencyService.size());
+        verify(idempotencyKeyRepository).deleteCreatedBefore(LocalDateTime.of(2025, 5, 1, 8, 0, 1));
+    }
+
+    @Test
+    void record_BeyondMemoryCap_ShouldEvictOldestKeyAndFallBackToDatabase() {
+        UUID firstOrderId = UUID.randomUUID();
+        idempotencyService.record("buyer", "key-0", firstOrderId);
+        for (int i = 1; i <= OrderIdempotencyServiceImpl.MAX_CACHED_KEYS; i++) {
+            idempotencyService.record("buyer", "key-" + i, UUID.randomUUID());
+        }
+
+        assertEquals(OrderIdempotencyServiceImpl.MAX_CACHED_KEYS, idempotencyService.size());
+
+        OrderIdempotencyKey stored = new OrderIdempotencyKey();
+        stored.setIdOrder(firstOrderId);
+        when(idempotencyKeyRepository.findByUsernameAndIdempotencyKey("buyer", "key-0")).thenReturn(Optional.of(stored));
+
+        assertEquals(firstOrderId, idempotencyService.findOrderId("buyer", "key-0"));
+        verify(idempotencyKeyRepository).findByUsernameAndIdempotencyKey("buyer", "key-0");
+        assertEquals(OrderIdempotencyServiceImpl.MAX_CACHED_KEYS, idempotencyService.size());
+    }
+}
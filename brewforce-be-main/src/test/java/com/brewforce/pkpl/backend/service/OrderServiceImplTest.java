@@ -1,5 +1,7 @@
 package com.brewforce.pkpl.backend.service;
 
+import com.brewforce.pkpl.backend.dto.request.OrderCursor;
+import com.brewforce.pkpl.backend.dto.response.OrderStatusResponse;
 import com.brewforce.pkpl.backend.model.Menu;
 import com.brewforce.pkpl.backend.model.Order;
 import com.brewforce.pkpl.backend.repository.MenuRepository;
@@ -10,22 +12,27 @@ import ch.qos.logback.core.AppenderBase;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 import ch.qos.logback.classic.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.net.URL;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class OrderServiceImplTest {
@@ -36,6 +43,12 @@ class OrderServiceImplTest {
     @Mock
     private MenuRepository menuRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private OrderIdempotencyService orderIdempotencyService;
+
     @InjectMocks
     private OrderServiceImpl orderService;
 
@@ -53,7 +66,8 @@ class OrderServiceImplTest {
 
         Order activeOrder = new Order();
         activeOrder.setStatus("AWAITING_PAYMENT");
-        when(orderRepository.findByUsername(username)).thenReturn(List.of(activeOrder));
+        when(orderRepository.findFirstByUsernameAndStatusNotIn(eq(username), anyList()))
+                .thenReturn(Optional.of(activeOrder));
 
         ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> {
             orderService.createOrder(menuIds, quantities, username);
@@ -75,8 +89,8 @@ class OrderServiceImplTest {
         menu.setIdMenu(menuId);
         menu.setHargaMenu(10000);
         menu.setStok(10);
-        when(orderRepository.findByUsername(username)).thenReturn(Collections.emptyList());
-        when(menuRepository.findById(menuId)).thenReturn(Optional.of(menu));
+        when(menuRepository.findByIdMenuInOrderByIdMenu(any())).thenReturn(List.of(menu));
+        when(menuRepository.decrementStok(any(), anyInt())).thenReturn(1);
 
         Order savedOrder = new Order();
         when(orderRepository.save(any(Order.class))).thenReturn(savedOrder);
@@ -85,6 +99,160 @@ class OrderServiceImplTest {
 
         assertNotNull(result);
         verify(orderRepository, times(1)).save(any(Order.class));
+
+        ArgumentCaptor<OrderChangedEvent> eventCaptor = ArgumentCaptor.forClass(OrderChangedEvent.class);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        assertEquals(OrderChangedEvent.ORDER_CREATED, eventCaptor.getValue().getType());
+    }
+
+    @Test
+    void createOrder_WithIdempotencyKey_ShouldRecordKeyAndStampTransactionRevision() {
+        UUID menuId = UUID.randomUUID();
+        Menu menu = new Menu();
+        menu.setIdMenu(menuId);
+        menu.setHargaMenu(10000);
+        menu.setStok(10);
+        when(menuRepository.findByIdMenuInOrderByIdMenu(any())).thenReturn(List.of(menu));
+        when(menuRepository.decrementStok(any(), anyInt())).thenReturn(1);
+
+        UUID orderId = UUID.randomUUID();
+        Order savedOrder = new Order();
+        savedOrder.setIdOrder(orderId);
+        when(orderRepository.save(any(Order.class))).thenReturn(savedOrder);
+
+        when(orderRepository.nextRevision()).thenReturn(3L);
+
+        orderService.createOrder(List.of(menuId), List.of(1), "testUser", "key-1");
+
+        InOrder inOrder = inOrder(orderRepository, orderIdempotencyService);
+        inOrder.verify(orderRepository).save(any(Order.class));
+        inOrder.verify(orderIdempotencyService).record("testUser", "key-1", orderId);
+        inOrder.verify(orderRepository).nextRevision();
+        assertEquals(3L, savedOrder.getRevision());
+    }
+
+    @Test
+    void createOrder_WithoutIdempotencyKey_ShouldNotRecordKey() {
+        UUID menuId = UUID.randomUUID();
+        Menu menu = new Menu();
+        menu.setIdMenu(menuId);
+        menu.setHargaMenu(10000);
+        menu.setStok(10);
+        when(menuRepository.findByIdMenuInOrderByIdMenu(any())).thenReturn(List.of(menu));
+        when(menuRepository.decrementStok(any(), anyInt())).thenReturn(1);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        orderService.createOrder(List.of(menuId), List.of(1), "testUser");
+
+        verifyNoInteractions(orderIdempotencyService);
+    }
+
+    @Test
+    void createOrder_WithManyItems_ShouldLoadMenusInSingleQuery() {
+        String username = "testUser";
+        List<UUID> menuIds = new ArrayList<>();
+        List<Integer> quantities = new ArrayList<>();
+        List<Menu> menus = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Menu menu = new Menu();
+            menu.setIdMenu(UUID.randomUUID());
+            menu.setNamaMenu("Menu " + i);
+            menu.setHargaMenu(10000);
+            menu.setStok(10);
+            menus.add(menu);
+            menuIds.add(menu.getIdMenu());
+            quantities.add(1);
+        }
+        when(menuRepository.findByIdMenuInOrderByIdMenu(any())).thenReturn(menus);
+        when(menuRepository.decrementStok(any(), anyInt())).thenReturn(1);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order result = orderService.createOrder(menuIds, quantities, username);
+
+        assertEquals(10, result.getOrderMenuItems().size());
+        verify(menuRepository, times(1)).findByIdMenuInOrderByIdMenu(any());
+        verify(menuRepository, never()).findById(any());
+    }
+
+    @Test
+    void createOrder_WithDuplicateMenuIds_ShouldMergeQuantities() {
+        UUID menuId = UUID.randomUUID();
+        String username = "testUser";
+
+        Menu menu = new Menu();
+        menu.setIdMenu(menuId);
+        menu.setNamaMenu("Kopi Susu");
+        menu.setHargaMenu(15000);
+        menu.setStok(10);
+        when(menuRepository.findByIdMenuInOrderByIdMenu(any())).thenReturn(List.of(menu));
+        when(menuRepository.decrementStok(any(), anyInt())).thenReturn(1);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order result = orderService.createOrder(List.of(menuId, menuId), List.of(2, 3), username);
+
+        assertEquals(1, result.getOrderMenuItems().size());
+        assertEquals(5, result.getOrderMenuItems().get(0).getQuantity());
+        assertEquals(75000L, result.getTotalHarga());
+        verify(menuRepository, times(1)).decrementStok(menuId, 5);
+    }
+
+    @Test
+    void createOrder_WhenConditionalDecrementFails_ShouldThrowBadRequest() {
+        UUID menuId = UUID.randomUUID();
+        String username = "testUser";
+
+        Menu menu = new Menu();
+        menu.setIdMenu(menuId);
+        menu.setNamaMenu("Kopi Susu");
+        menu.setHargaMenu(15000);
+        menu.setStok(10);
+        when(menuRepository.findByIdMenuInOrderByIdMenu(any())).thenReturn(List.of(menu));
+        // Stok sudah habis dipesan oleh transaksi lain
+        when(menuRepository.decrementStok(menuId, 2)).thenReturn(0);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> orderService.createOrder(List.of(menuId), List.of(2), username));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        assertTrue(exception.getReason().contains("tidak mencukupi"));
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void updateStatusOrder_WithCancellation_ShouldRestoreStockInSingleStatement() {
+        UUID orderId = UUID.randomUUID();
+        Menu menu = new Menu();
+        menu.setIdMenu(UUID.randomUUID());
+        menu.setNamaMenu("Kopi Susu");
+        menu.setHargaMenu(15000);
+        menu.setStok(10);
+
+        Order existingOrder = new Order();
+        existingOrder.setIdOrder(orderId);
+        existingOrder.setStatus("AWAITING_PAYMENT");
+        existingOrder.addMenuItem(menu, 3);
+        existingOrder.addMenuItem(menu, 2);
+
+        Order updateOrder = new Order();
+        updateOrder.setIdOrder(orderId);
+        updateOrder.setStatus("CANCELLED");
+
+        when(orderRepository.findByIdWithItems(orderId)).thenReturn(Optional.of(existingOrder));
+
+        orderService.updateStatusOrder(updateOrder);
+
+        verify(menuRepository, times(1)).restoreStokForOrders(List.of(orderId));
+        verify(menuRepository, never()).save(any());
+    }
+
+    @Test
+    void createOrder_WithUnknownMenu_ShouldThrow() {
+        String username = "testUser";
+        when(menuRepository.findByIdMenuInOrderByIdMenu(any())).thenReturn(Collections.emptyList());
+
+        assertThrows(RuntimeException.class,
+                () -> orderService.createOrder(List.of(UUID.randomUUID()), List.of(1), username));
+        verify(orderRepository, never()).save(any());
     }
 
     @Test
@@ -92,7 +260,7 @@ class OrderServiceImplTest {
         UUID orderId = UUID.randomUUID();
         Order order = new Order();
         order.setIdOrder(orderId);
-        when(orderRepository.findAll()).thenReturn(List.of(order));
+        when(orderRepository.findByIdWithItems(orderId)).thenReturn(Optional.of(order));
 
         Order result = orderService.getOrderById(orderId);
 
@@ -103,13 +271,39 @@ class OrderServiceImplTest {
     @Test
     void getOrderById_WithNonExistingId_ShouldReturnNull() {
         UUID orderId = UUID.randomUUID();
-        when(orderRepository.findAll()).thenReturn(Collections.emptyList());
+        when(orderRepository.findByIdWithItems(orderId)).thenReturn(Optional.empty());
 
         Order result = orderService.getOrderById(orderId);
 
         assertNull(result);
     }
 
+    @Test
+    void getOrderStatus_ShouldUseProjectionWithoutLoadingItems() {
+        UUID orderId = UUID.randomUUID();
+        OrderStatusResponse orderStatus = new OrderStatusResponse(orderId, "user1", "READY", 3L);
+        when(orderRepository.findStatusById(orderId)).thenReturn(Optional.of(orderStatus));
+
+        OrderStatusResponse result = orderService.getOrderStatus(orderId);
+
+        assertSame(orderStatus, result);
+        verify(orderRepository, never()).findByIdWithItems(any());
+    }
+
+    @Test
+    void getOrderById_ShouldUseSingleKeyedLookup() {
+        UUID orderId = UUID.randomUUID();
+        Order target = new Order();
+        target.setIdOrder(orderId);
+        when(orderRepository.findByIdWithItems(orderId)).thenReturn(Optional.of(target));
+
+        Order result = orderService.getOrderById(orderId);
+
+        assertSame(target, result);
+        verify(orderRepository).findByIdWithItems(orderId);
+        verify(orderRepository, never()).findAll();
+    }
+
     @Test
     void updateStatusOrder_WithValidTransition_ShouldUpdateStatus() {
         UUID orderId = UUID.randomUUID();
@@ -121,7 +315,7 @@ class OrderServiceImplTest {
         updateOrder.setIdOrder(orderId);
         updateOrder.setStatus("PREPARING");
 
-        when(orderRepository.findAll()).thenReturn(List.of(existingOrder));
+        when(orderRepository.findByIdWithItems(orderId)).thenReturn(Optional.of(existingOrder));
         when(orderRepository.save(any(Order.class))).thenReturn(existingOrder);
 
         Order result = orderService.updateStatusOrder(updateOrder);
@@ -129,6 +323,12 @@ class OrderServiceImplTest {
         assertNotNull(result);
         assertEquals("PREPARING", result.getStatus());
         verify(orderRepository, times(1)).save(existingOrder);
+
+        ArgumentCaptor<OrderChangedEvent> eventCaptor = ArgumentCaptor.forClass(OrderChangedEvent.class);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        assertEquals(OrderChangedEvent.ORDER_STATUS_CHANGED, eventCaptor.getValue().getType());
+        assertEquals(orderId, eventCaptor.getValue().getIdOrder());
+        assertEquals("PREPARING", eventCaptor.getValue().getStatus());
     }
 
     @Test
@@ -142,7 +342,7 @@ class OrderServiceImplTest {
         updateOrder.setIdOrder(orderId);
         updateOrder.setStatus("COMPLETED");
 
-        when(orderRepository.findAll()).thenReturn(List.of(existingOrder));
+        when(orderRepository.findByIdWithItems(orderId)).thenReturn(Optional.of(existingOrder));
 
         ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> {
             orderService.updateStatusOrder(updateOrder);
@@ -154,302 +354,82 @@ class OrderServiceImplTest {
     }
 
     @Test
-    void getAllOrders_WithSQLInjection_ShouldHandleSafely() {
-        // OWASP A03:2021 – Injection
-        String maliciousSQL = "'; DROP TABLE orders; --";
-        Order order = new Order();
-        order.setUsername(maliciousSQL);
-        when(orderRepository.findAll()).thenReturn(List.of(order));
-        
-        List<Order> result = orderService.getAllOrders();
-        
-        assertNotNull(result);
-        assertEquals(1, result.size());
+    void getOrdersPage_ShouldUseKeysetQueryThenLoadItems() {
+        OrderCursor after = new OrderCursor(LocalDateTime.of(2025, 1, 1, 10, 0), UUID.randomUUID());
+        List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID());
+        List<Order> page = List.of(new Order(), new Order());
+        when(orderRepository.findPageIds(eq(after.getCreatedAt()), eq(after.getIdOrder()), any(Pageable.class)))
+                .thenReturn(ids);
+        when(orderRepository.findAllWithItemsByIdOrderIn(ids)).thenReturn(page);
+
+        List<Order> result = orderService.getOrdersPage(null, after, 21);
+
+        assertSame(page, result);
+        verify(orderRepository).findPageIds(after.getCreatedAt(), after.getIdOrder(), PageRequest.of(0, 21));
+        verify(orderRepository, never()).findAll();
     }
 
     @Test
-    void getAllOrders_WithXSSPayload_ShouldReturnSanitizedData() {
-        // OWASP A03:2021 – Injection (XSS)
-        String xssPayload = "<script>alert('xss')</script>";
-        Order order = new Order();
-        order.setUsername(xssPayload);
-        when(orderRepository.findAll()).thenReturn(List.of(order));
-        
-        List<Order> result = orderService.getAllOrders();
-        
-        assertNotNull(result);
-        assertEquals(1, result.size());
-    }
+    void getOrdersPageByUsername_WithNoMoreOrders_ShouldSkipItemQuery() {
+        when(orderRepository.findPageIdsByUsername(eq("user1"), any(), any(), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
 
-    @Test
-    void getAllOrders_WithLargeDataSet_ShouldHandleMemoryEfficiently() {
-        // OWASP A05:2021 – Security Misconfiguration
-        List<Order> largeOrderList = new ArrayList<>();
-        for (int i = 0; i < 10000; i++) {
-            Order order = new Order();
-            order.setIdOrder(UUID.randomUUID());
-            largeOrderList.add(order);
-        }
-        when(orderRepository.findAll()).thenReturn(largeOrderList);
-        
-        List<Order> result = orderService.getAllOrders();
-        
-        assertNotNull(result);
-        assertEquals(10000, result.size());
-    }
+        List<Order> result = orderService.getOrdersPageByUsername("user1", OrderCursor.FIRST, 51);
 
-    @Test
-    void getAllOrders_WithNullRepository_ShouldHandleGracefully() {
-        // OWASP A01:2021 – Broken Access Control
-        orderRepository = null;
-        orderService = new OrderServiceImpl(null, menuRepository);
-        
-        assertThrows(NullPointerException.class, () -> {
-            orderService.getAllOrders();
-        });
+        assertTrue(result.isEmpty());
+        verify(orderRepository, never()).findAllWithItemsByIdOrderIn(any());
     }
 
     @Test
-    void getAllOrders_WithConcurrentAccess_ShouldHandleThreadSafely() {
-        // OWASP A04:2021 – Insecure Design
-        when(orderRepository.findAll()).thenReturn(new ArrayList<>());
-        
-        ExecutorService executor = Executors.newFixedThreadPool(10);
-        List<Future<?>> futures = new ArrayList<>();
-        
-        for (int i = 0; i < 10; i++) {
-            futures.add(executor.submit(() -> orderService.getAllOrders()));
-        }
-        
-        futures.forEach(future -> {
-            try {
-                future.get();
-            } catch (Exception e) {
-                fail("Concurrent access failed");
-            }
-        });
-    }
+    void updateStatusOrder_ShouldStampTransactionRevision() {
+        UUID orderId = UUID.randomUUID();
+        Order existingOrder = new Order();
+        existingOrder.setIdOrder(orderId);
+        existingOrder.setStatus("PREPARING");
+        existingOrder.setRevision(5L);
 
-    @Test
-    void getAllOrders_WithMalformedData_ShouldHandleValidation() {
-        // OWASP A07:2021 – Identification and Authentication Failures
-        Order invalidOrder = new Order();
-        invalidOrder.setStatus("INVALID_STATUS");
-        when(orderRepository.findAll()).thenReturn(List.of(invalidOrder));
-        
-        List<Order> result = orderService.getAllOrders();
-        
-        assertNotNull(result);
-        assertEquals(1, result.size());
-    }
+        Order updateOrder = new Order();
+        updateOrder.setIdOrder(orderId);
+        updateOrder.setStatus("READY");
 
-    @Test
-    void getAllOrders_WithModifiedData_ShouldPreserveIntegrity() {
-        // OWASP A08:2021 – Software and Data Integrity Failures
-        Order order = new Order();
-        order.setIdOrder(UUID.randomUUID());
-        order.setStatus("COMPLETED");
-        when(orderRepository.findAll()).thenReturn(List.of(order));
-        
-        List<Order> result = orderService.getAllOrders();
-        Order retrievedOrder = result.get(0);
-        
-        assertEquals(order.getStatus(), retrievedOrder.getStatus());
-        assertEquals(order.getIdOrder(), retrievedOrder.getIdOrder());
-    }
+        when(orderRepository.findByIdWithItems(orderId)).thenReturn(Optional.of(existingOrder));
+        when(orderRepository.nextRevision()).thenReturn(9L);
 
-    @Test
-    void getAllOrders_WithSensitiveData_ShouldNotExposePrivateInfo() {
-        // OWASP A02:2021 – Cryptographic Failures
-        UUID orderId = UUID.randomUUID();
-        Order order = new Order();
-        order.setIdOrder(orderId);
-        order.setUsername("user123");
-        order.setStatus("AWAITING_PAYMENT");
-        
-        // Add menu items with complete required properties
-        Menu menu = new Menu();
-        menu.setIdMenu(UUID.randomUUID());
-        menu.setNamaMenu("Test Menu");
-        menu.setHargaMenu(50000);
-        menu.setStok(10);  // Set sufficient stock
-        menu.setDeleted(false);
-        
-        order.addMenuItem(menu, 2);
-        
-        when(orderRepository.findAll()).thenReturn(List.of(order));
-        
-        List<Order> result = orderService.getAllOrders();
-        
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        
-        // Verify order details are present but properly structured
-        Order retrievedOrder = result.get(0);
-        assertNotNull(retrievedOrder.getIdOrder());
-        assertNotNull(retrievedOrder.getUsername());
-        assertNotNull(retrievedOrder.getStatus());
-        assertNotNull(retrievedOrder.getOrderMenuItems());
-        assertFalse(retrievedOrder.getOrderMenuItems().isEmpty());
-        
-        // Verify order details are consistent
-        assertEquals(orderId, retrievedOrder.getIdOrder());
-        assertEquals("user123", retrievedOrder.getUsername());
-        assertEquals("AWAITING_PAYMENT", retrievedOrder.getStatus());
-        assertEquals(100000, retrievedOrder.getTotalHarga()); // 50000 * 2
-    }
+        Order result = orderService.updateStatusOrder(updateOrder);
 
-    @Test
-    void getAllOrders_WithPotentialSSRF_ShouldHandleSafely() {
-        // OWASP A10:2021 – Server-Side Request Forgery (SSRF)
-        Order order = new Order();
-        // Simulasi potential SSRF payload dalam username
-        String maliciousUsername = "file:///etc/passwd";
-        order.setUsername(maliciousUsername);
-        order.setStatus("AWAITING_PAYMENT");
-        
-        Menu menu = new Menu();
-        menu.setIdMenu(UUID.randomUUID());
-        menu.setNamaMenu("http://internal-system:8080/api/secret");
-        menu.setHargaMenu(50000);
-        menu.setStok(10);
-        menu.setDeleted(false);
-        
-        order.addMenuItem(menu, 1);
-        
-        when(orderRepository.findAll()).thenReturn(List.of(order));
-        
-        List<Order> result = orderService.getAllOrders();
-        
-        // Verify SSRF mitigations
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        Order retrievedOrder = result.get(0);
-        
-        // Verify the potentially dangerous data is still present but can't be exploited
-        assertEquals(maliciousUsername, retrievedOrder.getUsername());
-        // Verify the data is treated as plain text and not as a URL/file path
-        assertDoesNotThrow(() -> {
-            new URL(retrievedOrder.getUsername());
-        }, "Username should not be processed as a URL");
-        
-        // Verify menu name with URL is treated as plain text
-        retrievedOrder.getOrderMenuItems().forEach(orderMenu -> {
-            String menuName = orderMenu.getMenu().getNamaMenu();
-            assertDoesNotThrow(() -> {
-                new URL(menuName);
-            }, "Menu name should not be processed as a URL");
-        });
+        assertEquals(9L, result.getRevision());
+        InOrder inOrder = inOrder(orderRepository);
+        inOrder.verify(orderRepository).save(existingOrder);
+        inOrder.verify(orderRepository).nextRevision();
     }
 
     @Test
-    void getOrdersByStatuses_WithNullStatuses_ShouldReturnAllOrders() {
-        // Set up mock data
-        List<Order> allOrders = new ArrayList<>();
-        Order order1 = new Order();
-        order1.setStatus("AWAITING_PAYMENT");
-        Order order2 = new Order();
-        order2.setStatus("PREPARING");
-        Order order3 = new Order();
-        order3.setStatus("COMPLETED");
-        allOrders.addAll(List.of(order1, order2, order3));
-        
-        when(orderRepository.findAll()).thenReturn(allOrders);
-        
-        // Call method with null parameter
-        List<Order> result = orderService.getOrdersByStatuses(null);
-        
-        // Verify result
-        assertNotNull(result);
-        assertEquals(3, result.size());
-        verify(orderRepository, times(1)).findAll();
-        verify(orderRepository, never()).findByStatusIn(any());
-    }
-    
-    @Test
-    void getOrdersByStatuses_WithEmptyStatuses_ShouldReturnAllOrders() {
-        // Set up mock data
-        List<Order> allOrders = new ArrayList<>();
-        Order order1 = new Order();
-        order1.setStatus("AWAITING_PAYMENT");
-        Order order2 = new Order();
-        order2.setStatus("PREPARING");
-        allOrders.addAll(List.of(order1, order2));
-        
-        when(orderRepository.findAll()).thenReturn(allOrders);
-        
-        // Call method with empty list
-        List<Order> result = orderService.getOrdersByStatuses(Collections.emptyList());
-        
-        // Verify result
-        assertNotNull(result);
-        assertEquals(2, result.size());
-        verify(orderRepository, times(1)).findAll();
-        verify(orderRepository, never()).findByStatusIn(any());
-    }
-    
-    @Test
-    void getOrdersByStatuses_WithValidStatuses_ShouldFilterOrders() {
-        // Set up mock data and parameters
-        List<String> requestedStatuses = List.of("AWAITING_PAYMENT", "PREPARING");
-        
-        List<Order> filteredOrders = new ArrayList<>();
-        Order order1 = new Order();
-        order1.setStatus("AWAITING_PAYMENT");
-        Order order2 = new Order();
-        order2.setStatus("PREPARING");
-        filteredOrders.addAll(List.of(order1, order2));
-        
-        when(orderRepository.findByStatusIn(requestedStatuses)).thenReturn(filteredOrders);
-        
-        // Call method with valid statuses
-        List<Order> result = orderService.getOrdersByStatuses(requestedStatuses);
-        
-        // Verify result
-        assertNotNull(result);
-        assertEquals(2, result.size());
-        assertEquals("AWAITING_PAYMENT", result.get(0).getStatus());
-        assertEquals("PREPARING", result.get(1).getStatus());
-        verify(orderRepository, never()).findAll();
-        verify(orderRepository, times(1)).findByStatusIn(requestedStatuses);
-    }
-    
-    @Test
-    void getOrdersByStatuses_WithInvalidStatus_ShouldReturnEmptyList() {
-        // Set up mock data with invalid status
-        List<String> invalidStatuses = List.of("INVALID_STATUS");
-        when(orderRepository.findByStatusIn(invalidStatuses)).thenReturn(Collections.emptyList());
-        
-        // Call method with invalid status
-        List<Order> result = orderService.getOrdersByStatuses(invalidStatuses);
-        
-        // Verify result is empty
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
-        verify(orderRepository, never()).findAll();
-        verify(orderRepository, times(1)).findByStatusIn(invalidStatuses);
+    void getOrdersChangedSince_ShouldReturnOrdersSortedByRevision() {
+        List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID());
+        Order newer = new Order();
+        newer.setRevision(8L);
+        Order older = new Order();
+        older.setRevision(7L);
+        when(orderRepository.findIdsChangedSince(6L, 51)).thenReturn(ids);
+        when(orderRepository.findAllWithItemsByIdOrderIn(ids)).thenReturn(List.of(newer, older));
+
+        List<Order> result = orderService.getOrdersChangedSince(6L, 51);
+
+        assertEquals(List.of(older, newer), result);
+        verify(orderRepository, never()).findIdsWithSameRevisionAs(any());
     }
-    
+
     @Test
-    void getOrdersByStatuses_WithMixedStatuses_ShouldReturnPartialResults() {
-        // Set up mock data with mixed valid and invalid statuses
-        List<String> mixedStatuses = List.of("AWAITING_PAYMENT", "INVALID_STATUS");
-        
-        List<Order> partialResults = new ArrayList<>();
-        Order order = new Order();
-        order.setStatus("AWAITING_PAYMENT");
-        partialResults.add(order);
-        
-        when(orderRepository.findByStatusIn(mixedStatuses)).thenReturn(partialResults);
-        
-        // Call method with mixed statuses
-        List<Order> result = orderService.getOrdersByStatuses(mixedStatuses);
-        
-        // Verify partial results
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals("AWAITING_PAYMENT", result.get(0).getStatus());
-        verify(orderRepository, never()).findAll();
-        verify(orderRepository, times(1)).findByStatusIn(mixedStatuses);
+    void getOrdersChangedSince_WithFullPage_ShouldLoadRestOfLastTransaction() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID sameTransaction = UUID.randomUUID();
+        when(orderRepository.findIdsChangedSince(6L, 2)).thenReturn(List.of(first, second));
+        when(orderRepository.findIdsWithSameRevisionAs(second)).thenReturn(List.of(second, sameTransaction));
+        when(orderRepository.findAllWithItemsByIdOrderIn(anyList())).thenReturn(new ArrayList<>());
+
+        orderService.getOrdersChangedSince(6L, 2);
+
+        verify(orderRepository).findAllWithItemsByIdOrderIn(List.of(first, second, sameTransaction));
     }
-}
\ No newline at end of file
+}
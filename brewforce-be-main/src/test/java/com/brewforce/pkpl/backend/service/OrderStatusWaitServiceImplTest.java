@@ -0,0 +1,78 @@
+package com.brewforce.pkpl.backend.service;
+
+import com.brewforce.pkpl.backend.dto.response.OrderStatusResponse;
+import com.brewforce.pkpl.backend.repository.OrderRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OrderStatusWaitServiceImplTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @InjectMocks
+    private OrderStatusWaitServiceImpl orderStatusWaitService;
+
+    private UUID orderId;
+    private OrderStatusResponse preparing;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        orderId = UUID.randomUUID();
+        preparing = new OrderStatusResponse(orderId, "buyer", "PREPARING", 4L);
+    }
+
+    @Test
+    void waitForChange_WithoutChange_ShouldStayPending() {
+        when(orderRepository.findStatusById(orderId)).thenReturn(Optional.of(preparing));
+
+        DeferredResult<OrderStatusResponse> result = orderStatusWaitService.waitForChange(preparing);
+
+        assertFalse(result.hasResult());
+        assertEquals(1, orderStatusWaitService.waiterCount(orderId));
+    }
+
+    @Test
+    void waitForChange_WhenChangeCommittedBeforeRegistration_ShouldCompleteImmediately() {
+        OrderStatusResponse ready = new OrderStatusResponse(orderId, "buyer", "READY", 5L);
+        when(orderRepository.findStatusById(orderId)).thenReturn(Optional.of(ready));
+
+        DeferredResult<OrderStatusResponse> result = orderStatusWaitService.waitForChange(preparing);
+
+        assertTrue(result.hasResult());
+        assertSame(ready, result.getResult());
+    }
+
+    @Test
+    void onOrderChanged_ShouldCompleteAllWaitersForThatOrderOnly() {
+        UUID otherOrderId = UUID.randomUUID();
+        OrderStatusResponse otherOrder = new OrderStatusResponse(otherOrderId, "other", "PREPARING", 2L);
+        when(orderRepository.findStatusById(orderId)).thenReturn(Optional.of(preparing));
+        when(orderRepository.findStatusById(otherOrderId)).thenReturn(Optional.of(otherOrder));
+
+        DeferredResult<OrderStatusResponse> first = orderStatusWaitService.waitForChange(preparing);
+        DeferredResult<OrderStatusResponse> second = orderStatusWaitService.waitForChange(preparing);
+        DeferredResult<OrderStatusResponse> unrelated = orderStatusWaitService.waitForChange(otherOrder);
+
+        orderStatusWaitService.onOrderChanged(new OrderChangedEvent(OrderChangedEvent.ORDER_STATUS_CHANGED,
+                orderId, "buyer", "READY", 6L, LocalDateTime.now()));
+
+        assertEquals("READY", ((OrderStatusResponse) first.getResult()).getStatus());
+        assertEquals(6L, ((OrderStatusResponse) second.getResult()).getRevision());
+        assertFalse(unrelated.hasResult());
+        assertEquals(0, orderStatusWaitService.waiterCount(orderId));
+    }
+}
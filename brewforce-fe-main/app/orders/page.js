@@ -5,9 +5,11 @@ import { jwtDecode } from "jwt-decode";
 import OrderListPembeli from "../../components/OrderListPembeli";
 import OrderListKasir from "../../components/OrderListKasir";
 import { useRouter } from "next/navigation";
+import { fetchOrderPage } from "@/lib/orderPages";
 
 const OrderDetail = () => {
   const [orders, setOrders] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [error, setError] = useState(null);
   const [loading, setLoading] = useState(true);
   const [token, setToken] = useState(null);
@@ -37,18 +39,10 @@ const OrderDetail = () => {
           throw new Error("Unauthorized access");
         }
 
-        const res = await fetch(apiUrl, {
-          headers: {
-            Authorization: `Bearer ${storedToken}`,
-          },
-        });
-
-        if (!res.ok) {
-          throw new Error("Failed to fetch orders");
-        }
-
-        const data = await res.json();
-        setOrders(data);
+        // Hanya halaman pertama; halaman berikutnya dimuat komponen list lewat "Load more"
+        const page = await fetchOrderPage(apiUrl, storedToken);
+        setOrders(page.orders);
+        setNextCursor(page.nextCursor);
 
         if (userRole !== "PEMBELI" && userRole !== "KASIR") {
           throw new Error("Unauthorized access");
@@ -94,9 +88,9 @@ const OrderDetail = () => {
 
   const userRole = jwtDecode(token).role;
   return userRole === "PEMBELI" ? (
-    <OrderListPembeli orders={orders} />
+    <OrderListPembeli orders={orders} nextCursor={nextCursor} />
   ) : (
-    <OrderListKasir orders={orders} />
+    <OrderListKasir orders={orders} nextCursor={nextCursor} />
   );
 };
 
@@ -1,19 +1,22 @@
 'use client';
 
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useCallback } from 'react';
+import { fetchOrderPage, fetchOrderChanges, latestRevision, mergeOrderChanges } from '@/lib/orderPages';
 
-const OrdersPage = ({orders: initialOrders}) => {
-    const [orders, setOrders] = useState([]);
-    const [filteredOrders, setFilteredOrders] = useState([]);
+// Interval polling /api/orders/changes; hanya order yang berubah yang diambil ulang
+const REFRESH_INTERVAL_MS = 15000;
+
+const OrdersPage = ({orders: initialOrders, nextCursor: initialCursor}) => {
+    const [orders, setOrders] = useState(initialOrders || []);
+    const [nextCursor, setNextCursor] = useState(initialCursor || null);
+    const [revision, setRevision] = useState(latestRevision(initialOrders || []));
     const [activeTab, setActiveTab] = useState('All');
     const [error, setError] = useState(null);
     const [loaded, setLoaded] = useState(false);
-    const [loading, setLoading] = useState(true);
+    const [loading, setLoading] = useState(false);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [toast, setToast] = useState({ show: false, type: '', message: '' });
 
-    const [currentPage, setCurrentPage] = useState(1);
-    const ordersPerPage = 10;
-
     const token = localStorage.getItem("token");
 
     const [sortConfig, setSortConfig] = useState({
@@ -21,13 +24,6 @@ const OrdersPage = ({orders: initialOrders}) => {
         direction: 'desc'
     });
 
-    useEffect(() => {
-        if (initialOrders && initialOrders.length > 0) {
-            console.log("orders masuk")
-            setLoading(false);
-        }
-    }, [initialOrders]);
-
     const tabs = ['All', 'AWAITING_PAYMENT', 'PREPARING', 'READY', 'COMPLETED', 'CANCELLED'];
 
     // Toast notification function
@@ -40,104 +36,79 @@ const OrdersPage = ({orders: initialOrders}) => {
     };
 
     useEffect(() => {
-        setOrders(initialOrders);
-        setFilteredOrders(initialOrders);
-        setTimeout(() => setLoaded(true), 300);
-    }, [initialOrders]);
+        const timer = setTimeout(() => setLoaded(true), 300);
+        return () => clearTimeout(timer);
+    }, []);
+
+    const ordersUrl = (tab) => tab === 'All'
+        ? `${process.env.NEXT_PUBLIC_API_URL_BE}/api/orders`
+        : `${process.env.NEXT_PUBLIC_API_URL_BE}/api/orders?statuses=${tab}`;
+
+    const matchesTab = useCallback(
+        (order) => activeTab === 'All' || order.status === activeTab,
+        [activeTab]
+    );
+
+    const loadFirstPage = async (tab) => {
+        const page = await fetchOrderPage(ordersUrl(tab), token);
+        setOrders(page.orders);
+        setNextCursor(page.nextCursor);
+        setRevision(latestRevision(page.orders));
+    };
 
     const handleTabChange = async (tab) => {
-        setCurrentPage(1);
         setActiveTab(tab);
         setError(null); // Reset error state
-        
-        if (tab === 'All') {
-            setFilteredOrders(orders);
-            return;
-        }
-    
+
         try {
             setLoading(true); // Add loading state while fetching
-            const response = await fetch(
-                `${process.env.NEXT_PUBLIC_API_URL_BE}/api/orders?statuses=${tab}`, 
-                {
-                    headers: {
-                        'Authorization': `Bearer ${token}`,
-                        'Content-Type': 'application/json'
-                    }
-                }
-            );
-    
-            const filteredData = await response.json();
-            if (!response.ok) {
-                setError(filteredData.message);
-            }else{
-                setFilteredOrders(filteredData);
-                setError(null);
-            }
+            await loadFirstPage(tab);
         } catch (error) {
             console.error('Error fetching filtered orders:', error);
             setError(error.message);
-            setFilteredOrders([]); // Clear filtered orders on error
+            setOrders([]); // Clear orders on error
+            setNextCursor(null);
         } finally {
             setLoading(false);
         }
     };
 
-    const paginate = (orders) => {
-        const indexOfLastOrder = currentPage * ordersPerPage;
-        const indexOfFirstOrder = indexOfLastOrder - ordersPerPage;
-        return orders.slice(indexOfFirstOrder, indexOfLastOrder);
+    const loadMore = async () => {
+        try {
+            setLoadingMore(true);
+            const page = await fetchOrderPage(ordersUrl(activeTab), token, nextCursor);
+            setOrders(prev => [...prev, ...page.orders]);
+            setNextCursor(page.nextCursor);
+        } catch (error) {
+            showToast('error', `Failed to load more orders: ${error.message}`);
+        } finally {
+            setLoadingMore(false);
+        }
     };
 
-    // Add this component for pagination controls
-    const PaginationControls = ({ totalOrders }) => {
-        const pageNumbers = Math.ceil(totalOrders / ordersPerPage);
-        
-        return (
-            <div className="flex justify-center items-center gap-2 mt-6">
-                <button
-                    onClick={() => setCurrentPage(prev => Math.max(prev - 1, 1))}
-                    disabled={currentPage === 1}
-                    className={`px-4 py-2 rounded-lg transition-all duration-200 
-                        ${currentPage === 1 
-                            ? 'bg-gray-200 text-gray-500 cursor-not-allowed' 
-                            : 'bg-amber-800 text-white hover:bg-amber-700'}`}
-                >
-                    Previous
-                </button>
-                
-                <div className="flex gap-2">
-                    {[...Array(pageNumbers)].map((_, idx) => (
-                        <button
-                            key={idx + 1}
-                            onClick={() => setCurrentPage(idx + 1)}
-                            className={`px-4 py-2 rounded-lg transition-all duration-200 
-                                ${currentPage === idx + 1 
-                                    ? 'bg-amber-800 text-white' 
-                                    : 'bg-white text-amber-800 hover:bg-amber-100'}`}
-                        >
-                            {idx + 1}
-                        </button>
-                    ))}
-                </div>
-                
-                <button
-                    onClick={() => setCurrentPage(prev => Math.min(prev + 1, pageNumbers))}
-                    disabled={currentPage === pageNumbers}
-                    className={`px-4 py-2 rounded-lg transition-all duration-200 
-                        ${currentPage === pageNumbers 
-                            ? 'bg-gray-200 text-gray-500 cursor-not-allowed' 
-                            : 'bg-amber-800 text-white hover:bg-amber-700'}`}
-                >
-                    Next
-                </button>
+    // Refresh hanya mengambil delta sejak revisi terakhir lalu menggabungkannya ke halaman
+    // yang sudah dimuat. Tanpa revisi (daftar kosong) atau delta terlalu besar, cukup muat
+    // ulang halaman pertama.
+    const refresh = useCallback(async () => {
+        try {
+            const changes = revision == null ? null : await fetchOrderChanges(token, revision);
+            if (changes == null) {
+                await loadFirstPage(activeTab);
+                return;
+            }
+            if (changes.orders.length > 0) {
+                setOrders(prev => mergeOrderChanges(prev, changes.orders, matchesTab, nextCursor != null));
+            }
+            setRevision(changes.revision);
+        } catch (error) {
+            console.error('Error refreshing orders:', error);
+        }
+    }, [revision, activeTab, nextCursor, matchesTab, token]);
 
-                <span className="text-amber-800 ml-4">
-                    Page {currentPage} of {pageNumbers}
-                </span>
-            </div>
-        );
-    };
+    useEffect(() => {
+        const interval = setInterval(refresh, REFRESH_INTERVAL_MS);
+        return () => clearInterval(interval);
+    }, [refresh]);
 
     const getStatusColor = (status) => {
         const colors = {
@@ -179,16 +150,11 @@ const OrdersPage = ({orders: initialOrders}) => {
                 throw new Error(`Error: ${response.status}`);
             }
 
-            // Update local state instead of fetching
-            setOrders(prevOrders => {
-                const updatedOrders = prevOrders.map(order => 
-                order.idOrder === orderId ? { ...order, status: nextStatus } : order
-                );
-                setFilteredOrders(updatedOrders.filter(
-                activeTab === 'All' ? () => true : order => order.status === activeTab
-                ));
-                return updatedOrders;
-            });
+            // Update local state instead of fetching; revisi barunya ikut terbawa di refresh berikutnya
+            setOrders(prevOrders => prevOrders
+                .map(order => order.idOrder === orderId ? { ...order, status: nextStatus } : order)
+                .filter(order => activeTab === 'All' || order.status === activeTab)
+            );
             
             // Show success toast notification
             showToast('success', `Order updated to ${nextStatus.replace('_', ' ')}`);
@@ -324,7 +290,7 @@ return (
                                 </div>
                             </td>
                         </tr>
-                    ) : !filteredOrders || filteredOrders.length === 0 ? (
+                    ) : !orders || orders.length === 0 ? (
                         <tr>
                             <td colSpan="5" className="px-6 py-8 text-center">
                                 <div className="flex flex-col items-center justify-center text-amber-800">
@@ -337,7 +303,7 @@ return (
                             </td>
                         </tr>
                     ) : (
-                        paginate(sortOrders(filteredOrders)).map((order, index) => (
+                        sortOrders(orders).map((order, index) => (
                             <tr 
                                 key={order.idOrder}
                                 className={`border-b border-amber-100 hover:bg-amber-50 transition-colors ${
@@ -403,10 +369,20 @@ return (
                     </tbody>
                 </table>
             </div>
-                            {/* Add pagination controls */}
-                            {!error && filteredOrders.length > 0 && (
-                    <PaginationControls totalOrders={filteredOrders.length} />
-                )}
+            {!error && nextCursor && (
+                <div className="flex justify-center mt-6">
+                    <button
+                        onClick={loadMore}
+                        disabled={loadingMore}
+                        className={`px-4 py-2 rounded-lg transition-all duration-200 
+                            ${loadingMore
+                                ? 'bg-gray-200 text-gray-500 cursor-not-allowed'
+                                : 'bg-amber-800 text-white hover:bg-amber-700'}`}
+                    >
+                        {loadingMore ? 'Loading...' : 'Load more'}
+                    </button>
+                </div>
+            )}
         </div>
 
         {/* CSS for toast animation */}
@@ -3,9 +3,16 @@
 import React, { useState } from "react";
 import moment from "moment";
 import Link from "next/link";
+import { fetchOrderPage } from "@/lib/orderPages";
 
-const OrderListPembeli = ({ orders }) => {
+const OrderListPembeli = ({ orders: initialOrders, nextCursor: initialCursor }) => {
   const [showModal, setShowModal] = useState(false);
+  const [orders, setOrders] = useState(initialOrders);
+  const [nextCursor, setNextCursor] = useState(initialCursor);
+  const [loadingMore, setLoadingMore] = useState(false);
+  const [loadMoreError, setLoadMoreError] = useState(null);
+
+  // Order aktif selalu order terbaru milik user, jadi cukup dicek di halaman yang sudah dimuat
   const hasActiveOrder = orders.some(order => 
     ["AWAITING_PAYMENT", "PREPARING", "READY"].includes(order.status)
   );
@@ -15,6 +22,24 @@ const OrderListPembeli = ({ orders }) => {
       setShowModal(true); // Tampilkan modal alih-alih alert
     }
   };
+  const loadMore = async () => {
+    setLoadingMore(true);
+    setLoadMoreError(null);
+    try {
+      const page = await fetchOrderPage(
+        `${process.env.NEXT_PUBLIC_API_URL_BE}/api/orders/my-orders`,
+        localStorage.getItem("token"),
+        nextCursor
+      );
+      setOrders((prev) => [...prev, ...page.orders]);
+      setNextCursor(page.nextCursor);
+    } catch (error) {
+      setLoadMoreError(error.message);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const Modal = () => {
     if (!showModal) return null;
 
@@ -86,7 +111,7 @@ const OrderListPembeli = ({ orders }) => {
         </div>
       ) : (
         <div className="space-y-4 mb-24">
-          {[...orders].reverse().map((order) => (
+          {orders.map((order) => (
             <Link href={`/orders/${order.idOrder}`} key={order.idOrder}>
               <div className="bg-white mt-4 p-4 shadow-md rounded-lg flex flex-col space-y-2 cursor-pointer hover:bg-gray-50 transition">
                 <div className="flex justify-between">
@@ -126,6 +151,20 @@ const OrderListPembeli = ({ orders }) => {
               </div>
             </Link>
           ))}
+          {loadMoreError && (
+            <p className="text-center text-red-600">{loadMoreError}</p>
+          )}
+          {nextCursor && (
+            <div className="flex justify-center">
+              <button
+                onClick={loadMore}
+                disabled={loadingMore}
+                className="mt-4 bg-amber-900 hover:bg-amber-700 disabled:bg-gray-400 text-white px-6 py-2 rounded-lg font-semibold transition-colors"
+              >
+                {loadingMore ? "Memuat..." : "Muat lebih banyak"}
+              </button>
+            </div>
+          )}
         </div>
       )}
        <style jsx>{`
@@ -0,0 +1,75 @@
+// Endpoint list order di backend dipaging dengan keyset cursor: satu respons berisi
+// satu halaman dan header X-Next-Cursor kalau masih ada halaman berikutnya. UI hanya
+// memuat halaman berikutnya saat diminta ("Load more"), tidak pernah seluruh tabel.
+
+const authHeaders = (token) => ({
+  Authorization: `Bearer ${token}`,
+  "Content-Type": "application/json",
+});
+
+export async function fetchOrderPage(url, token, cursor = null) {
+  const pageUrl = new URL(url);
+  if (cursor) {
+    pageUrl.searchParams.set("cursor", cursor);
+  }
+
+  const res = await fetch(pageUrl.toString(), { headers: authHeaders(token) });
+  const data = await res.json().catch(() => null);
+  if (!res.ok) {
+    throw new Error(data?.message || "Failed to fetch orders");
+  }
+
+  return { orders: data, nextCursor: res.headers.get("X-Next-Cursor") };
+}
+
+// Perubahan setelah revisi since (khusus kasir). Jika selisihnya lebih dari maxPages
+// halaman, null dikembalikan dan pemanggil sebaiknya memuat ulang halaman pertama saja.
+export async function fetchOrderChanges(token, since, maxPages = 5) {
+  const orders = [];
+  let revision = since;
+
+  for (let page = 0; page < maxPages; page++) {
+    const url = new URL(`${process.env.NEXT_PUBLIC_API_URL_BE}/api/orders/changes`);
+    url.searchParams.set("since", revision);
+
+    const res = await fetch(url.toString(), { headers: authHeaders(token) });
+    const data = await res.json().catch(() => null);
+    if (!res.ok) {
+      throw new Error(data?.message || "Failed to fetch order changes");
+    }
+
+    orders.push(...data.orders);
+    revision = data.revision;
+    if (!data.hasMore) {
+      return { orders, revision };
+    }
+  }
+  return null;
+}
+
+export function latestRevision(orders) {
+  return orders.reduce(
+    (max, order) => (order.revision != null && (max == null || order.revision > max) ? order.revision : max),
+    null
+  );
+}
+
+const byNewest = (a, b) =>
+  a.createdDateTime < b.createdDateTime ? 1 : a.createdDateTime > b.createdDateTime ? -1 : 0;
+
+// Gabungkan delta ke daftar yang sudah dimuat. Order yang berubah diganti, atau dibuang jika
+// tidak lagi cocok dengan filter; order baru hanya disisipkan jika masuk rentang halaman yang
+// sudah dimuat (tidak lebih tua dari order tertua yang tampil, kecuali sudah halaman terakhir).
+export function mergeOrderChanges(current, changed, matches, hasOlderPages) {
+  const changedIds = new Set(changed.map((order) => order.idOrder));
+  const oldest = current.length > 0 ? current[current.length - 1].createdDateTime : null;
+
+  const merged = current.filter((order) => !changedIds.has(order.idOrder));
+  for (const order of changed) {
+    const inLoadedRange = !hasOlderPages || (oldest != null && order.createdDateTime >= oldest);
+    if (matches(order) && inLoadedRange) {
+      merged.push(order);
+    }
+  }
+  return merged.sort(byNewest);
+}